@@ -0,0 +1,41 @@
+package com.reposync.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code --name value} command line options.
+ */
+public class BenchmarkOptions {
+
+    private final Map<String, String> values;
+
+    private BenchmarkOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public static BenchmarkOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value, got: " + args[i]);
+            }
+            values.put(args[i].substring(2), args[++i]);
+        }
+        return new BenchmarkOptions(values);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    public long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    public String getString(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+}
@@ -0,0 +1,31 @@
+package com.reposync.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Entry point: {@code java -jar benchmark.jar <name> [--option value ...]}.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        BenchmarkOptions options = BenchmarkOptions.parse(Arrays.copyOfRange(args, 1, args.length));
+        switch (args[0]) {
+            case "quantization" -> new QuantizationBenchmark(options).run();
+            case "index" -> new IndexProfileBenchmark(options).run();
+            default -> usage();
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: java -jar benchmark.jar <benchmark> [--option value ...]");
+        System.out.println("  quantization  recall@k and bytes per vector for float16 / int8 quantization");
+        System.out.println("                --vectors 10000 --queries 200 --dimension 1536 --k 10 --clusters 64 --noise 0.5 --seed 42");
+        System.out.println("  index         recall@k, QPS and p50/p99 latency per vector index profile on a running Milvus");
+        System.out.println("                --uri http://localhost:19530 --profiles hnsw,ivf-flat,ivf-sq8,ivf-pq --sweep 16,32,64,128");
+        System.out.println("                --vectors 20000 --queries 500 --dimension 768 --k 10 --concurrency 4 --keep false");
+    }
+}
@@ -0,0 +1,298 @@
+package com.reposync.benchmark;
+
+import com.google.gson.Gson;
+import com.reposync.common.dto.IndexProfile;
+import com.reposync.common.util.FloatVectors;
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.SearchResults;
+import io.milvus.param.ConnectParam;
+import io.milvus.param.IndexType;
+import io.milvus.param.MetricType;
+import io.milvus.param.R;
+import io.milvus.param.collection.CreateCollectionParam;
+import io.milvus.param.collection.DropCollectionParam;
+import io.milvus.param.collection.FieldType;
+import io.milvus.param.collection.FlushParam;
+import io.milvus.param.collection.HasCollectionParam;
+import io.milvus.param.collection.LoadCollectionParam;
+import io.milvus.param.dml.InsertParam;
+import io.milvus.param.dml.SearchParam;
+import io.milvus.param.index.CreateIndexParam;
+import io.milvus.response.SearchResultsWrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares vector index profiles ({@link IndexProfile#builtIn()}, the ones milvus-service builds)
+ * on a real Milvus: each profile gets its own collection holding the same synthetic corpus, and
+ * the same queries are searched against it. Recall@k is measured against exact brute-force top-k
+ * computed locally; QPS and p50/p99 latency are client-side, with the given number of
+ * concurrent searchers. AUTOINDEX and DISKANN need a Milvus that supports them.
+ */
+public class IndexProfileBenchmark {
+
+    private static final String COLLECTION_PREFIX = "reposync_bench_";
+    private static final int INSERT_BATCH_SIZE = 1000;
+    private static final int WARMUP_QUERIES = 50;
+    private static final Gson GSON = new Gson();
+
+    private final String uri;
+    private final String token;
+    private final List<String> profiles;
+    private final List<Integer> sweep;
+    private final int vectors;
+    private final int queries;
+    private final int dimension;
+    private final int k;
+    private final int clusters;
+    private final float noise;
+    private final long seed;
+    private final int concurrency;
+    private final boolean keep;
+
+    public IndexProfileBenchmark(BenchmarkOptions options) {
+        this.uri = options.getString("uri", "http://localhost:19530");
+        this.token = options.getString("token", null);
+        this.profiles = List.of(options.getString("profiles", "hnsw,ivf-flat,ivf-sq8,ivf-pq").split(","));
+        String sweepValues = options.getString("sweep", null);
+        this.sweep = sweepValues == null ? List.of()
+                : Arrays.stream(sweepValues.split(",")).map(String::trim).map(Integer::parseInt).toList();
+        this.vectors = options.getInt("vectors", 20_000);
+        this.queries = options.getInt("queries", 500);
+        this.dimension = options.getInt("dimension", 768);
+        this.k = options.getInt("k", 10);
+        this.clusters = options.getInt("clusters", 64);
+        this.noise = Float.parseFloat(options.getString("noise", "0.5"));
+        this.seed = options.getLong("seed", 42L);
+        this.concurrency = options.getInt("concurrency", 4);
+        this.keep = Boolean.parseBoolean(options.getString("keep", "false"));
+    }
+
+    public void run() {
+        System.out.printf("Index profile benchmark against %s: %d vectors, %d queries, dimension %d, k=%d, concurrency %d%n",
+                uri, vectors, queries, dimension, k, concurrency);
+
+        Random random = new Random(seed);
+        float[][] centres = SyntheticCorpus.randomUnitVectors(random, clusters, dimension, null, 0f);
+        float[][] corpus = SyntheticCorpus.randomUnitVectors(random, vectors, dimension, centres, noise);
+        float[][] queryVectors = SyntheticCorpus.randomUnitVectors(random, queries, dimension, centres, noise);
+
+        long truthStart = System.nanoTime();
+        int[][] exact = new int[queries][];
+        for (int q = 0; q < queries; q++) {
+            exact[q] = SyntheticCorpus.topK(queryVectors[q], corpus, k);
+        }
+        System.out.printf("Exact top-%d computed in %.1f s%n%n", k, (System.nanoTime() - truthStart) / 1e9);
+
+        ConnectParam.Builder connect = ConnectParam.newBuilder().withUri(uri);
+        if (token != null) {
+            connect.withToken(token);
+        }
+        MilvusServiceClient client = new MilvusServiceClient(connect.build());
+        try {
+            System.out.printf("%-10s %-10s %-22s %8s %10s %10s %9s %9s%n",
+                    "profile", "index", "search params", "build s", "recall@" + k, "QPS", "p50 ms", "p99 ms");
+            for (String name : profiles) {
+                IndexProfile profile = IndexProfile.builtIn().get(name.trim());
+                if (profile == null) {
+                    System.out.printf("%-10s unknown profile, expected one of %s%n", name, IndexProfile.builtIn().keySet());
+                    continue;
+                }
+                try {
+                    benchmark(client, name.trim(), profile, corpus, queryVectors, exact);
+                } catch (RuntimeException e) {
+                    System.out.printf("%-10s %-10s failed: %s%n", name, profile.getIndexType(), e.getMessage());
+                }
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    private void benchmark(MilvusServiceClient client, String name, IndexProfile profile,
+                           float[][] corpus, float[][] queryVectors, int[][] exact) {
+        String collection = COLLECTION_PREFIX + name.replace('-', '_');
+        load(client, collection, corpus);
+
+        long buildStart = System.nanoTime();
+        CreateIndexParam.Builder index = CreateIndexParam.newBuilder()
+                .withCollectionName(collection)
+                .withFieldName("vector")
+                .withIndexType(IndexType.valueOf(profile.getIndexType().toUpperCase(Locale.ROOT)))
+                .withMetricType(MetricType.COSINE)
+                .withSyncMode(Boolean.TRUE)
+                .withSyncWaitingTimeout(TimeUnit.HOURS.toSeconds(1))
+                .withSyncWaitingInterval(500L);
+        if (!profile.getBuildParams().isEmpty()) {
+            index.withExtraParam(GSON.toJson(profile.getBuildParams()));
+        }
+        check(client.createIndex(index.build()), "createIndex");
+        check(client.loadCollection(LoadCollectionParam.newBuilder()
+                .withCollectionName(collection)
+                .withSyncLoad(Boolean.TRUE)
+                .build()), "loadCollection");
+        double buildSeconds = (System.nanoTime() - buildStart) / 1e9;
+
+        for (Map<String, Object> searchParams : searchParamVariants(profile)) {
+            report(client, collection, name, profile, searchParams, buildSeconds, queryVectors, exact);
+        }
+
+        if (!keep) {
+            client.dropCollection(DropCollectionParam.newBuilder().withCollectionName(collection).build());
+        }
+    }
+
+    /**
+     * The profile's search params, or with --sweep one variant per value of its first search
+     * param (ef, nprobe or search_list), which traces the recall/latency trade-off.
+     */
+    private List<Map<String, Object>> searchParamVariants(IndexProfile profile) {
+        Map<String, Object> base = profile.getSearchParams();
+        if (sweep.isEmpty() || base.isEmpty()) {
+            return List.of(base);
+        }
+        String key = base.keySet().iterator().next();
+        List<Map<String, Object>> variants = new ArrayList<>();
+        for (int value : sweep) {
+            Map<String, Object> params = new LinkedHashMap<>(base);
+            // HNSW rejects ef below k
+            params.put(key, "ef".equals(key) ? Math.max(value, k) : value);
+            variants.add(params);
+        }
+        return variants;
+    }
+
+    private void report(MilvusServiceClient client, String collection, String name, IndexProfile profile,
+                        Map<String, Object> searchParams, double buildSeconds, float[][] queryVectors, int[][] exact) {
+        String paramsJson = GSON.toJson(searchParams);
+        for (int q = 0; q < Math.min(WARMUP_QUERIES, queryVectors.length); q++) {
+            search(client, collection, queryVectors[q], paramsJson);
+        }
+
+        long[] latencies = new long[queryVectors.length];
+        int[][] found = new int[queryVectors.length][];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < concurrency; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int q = next.getAndIncrement(); q < queryVectors.length; q = next.getAndIncrement()) {
+                        long queryStart = System.nanoTime();
+                        found[q] = search(client, collection, queryVectors[q], paramsJson);
+                        latencies[q] = System.nanoTime() - queryStart;
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Search failed: " + e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long hits = 0;
+        for (int q = 0; q < queryVectors.length; q++) {
+            hits += SyntheticCorpus.overlap(exact[q], found[q]);
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-10s %-10s %-22s %8.1f %10.4f %10.1f %9.2f %9.2f%n",
+                name, profile.getIndexType(), paramsJson, buildSeconds,
+                (double) hits / ((long) queryVectors.length * k),
+                queryVectors.length / seconds,
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6);
+    }
+
+    private int[] search(MilvusServiceClient client, String collection, float[] query, String paramsJson) {
+        R<SearchResults> response = client.search(SearchParam.newBuilder()
+                .withCollectionName(collection)
+                .withVectorFieldName("vector")
+                .withMetricType(MetricType.COSINE)
+                .withVectors(List.of(FloatVectors.asList(query)))
+                .withTopK(k)
+                .withParams(paramsJson)
+                .withConsistencyLevel(ConsistencyLevelEnum.BOUNDED)
+                .build());
+        check(response, "search");
+        List<SearchResultsWrapper.IDScore> scores = new SearchResultsWrapper(response.getData().getResults()).getIDScore(0);
+        int[] ids = new int[scores.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) scores.get(i).getLongID();
+        }
+        return ids;
+    }
+
+    /**
+     * Recreates the collection with the corpus (id = position in the corpus) and flushes it, so
+     * the index is built over sealed segments.
+     */
+    private void load(MilvusServiceClient client, String collection, float[][] corpus) {
+        R<Boolean> exists = client.hasCollection(HasCollectionParam.newBuilder().withCollectionName(collection).build());
+        check(exists, "hasCollection");
+        if (Boolean.TRUE.equals(exists.getData())) {
+            check(client.dropCollection(DropCollectionParam.newBuilder().withCollectionName(collection).build()), "dropCollection");
+        }
+        check(client.createCollection(CreateCollectionParam.newBuilder()
+                .withCollectionName(collection)
+                .addFieldType(FieldType.newBuilder()
+                        .withName("id")
+                        .withDataType(DataType.Int64)
+                        .withPrimaryKey(true)
+                        .withAutoID(false)
+                        .build())
+                .addFieldType(FieldType.newBuilder()
+                        .withName("vector")
+                        .withDataType(DataType.FloatVector)
+                        .withDimension(dimension)
+                        .build())
+                .build()), "createCollection");
+
+        for (int from = 0; from < corpus.length; from += INSERT_BATCH_SIZE) {
+            int to = Math.min(corpus.length, from + INSERT_BATCH_SIZE);
+            List<Long> ids = new ArrayList<>(to - from);
+            List<List<Float>> rows = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                ids.add((long) i);
+                rows.add(FloatVectors.asList(corpus[i]));
+            }
+            check(client.insert(InsertParam.newBuilder()
+                    .withCollectionName(collection)
+                    .withFields(List.of(new InsertParam.Field("id", ids), new InsertParam.Field("vector", rows)))
+                    .build()), "insert");
+        }
+        check(client.flush(FlushParam.newBuilder()
+                .addCollectionName(collection)
+                .withSyncFlush(Boolean.TRUE)
+                .build()), "flush");
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static void check(R<?> response, String operation) {
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            String message = response.getException() != null
+                    ? response.getException().getMessage() : "Status code: " + response.getStatus();
+            throw new RuntimeException(operation + " failed: " + message);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.reposync.benchmark;
+
+import com.reposync.common.dto.QuantizedVector;
+import com.reposync.common.util.QuantizationMode;
+import com.reposync.common.util.VectorQuantizer;
+
+import java.util.Random;
+
+/**
+ * Measures what each {@link QuantizationMode} costs in search quality and what it saves in
+ * bytes. Corpus and queries come from {@link SyntheticCorpus}. Recall@k compares cosine top-k
+ * over the decoded corpus against exact float32 top-k.
+ */
+public class QuantizationBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    private final int vectors;
+    private final int queries;
+    private final int dimension;
+    private final int k;
+    private final int clusters;
+    private final float noise;
+    private final long seed;
+
+    public QuantizationBenchmark(BenchmarkOptions options) {
+        this.vectors = options.getInt("vectors", 10_000);
+        this.queries = options.getInt("queries", 200);
+        this.dimension = options.getInt("dimension", 1536);
+        this.k = options.getInt("k", 10);
+        this.clusters = options.getInt("clusters", 64);
+        this.noise = Float.parseFloat(options.getString("noise", "0.5"));
+        this.seed = options.getLong("seed", 42L);
+    }
+
+    public void run() {
+        System.out.printf("Quantization benchmark: %d vectors, %d queries, dimension %d, k=%d%n",
+                vectors, queries, dimension, k);
+
+        Random random = new Random(seed);
+        float[][] centres = SyntheticCorpus.randomUnitVectors(random, clusters, dimension, null, 0f);
+        float[][] corpus = SyntheticCorpus.randomUnitVectors(random, vectors, dimension, centres, noise);
+        float[][] queryVectors = SyntheticCorpus.randomUnitVectors(random, queries, dimension, centres, noise);
+
+        int[][] exact = new int[queries][];
+        for (int q = 0; q < queries; q++) {
+            exact[q] = SyntheticCorpus.topK(queryVectors[q], corpus, k);
+        }
+
+        System.out.printf("%-8s %12s %10s %12s %14s %14s %12s%n",
+                "mode", "bytes/vector", "saved", "recall@" + k, "encode ns/vec", "decode ns/vec", "max error");
+        for (QuantizationMode mode : QuantizationMode.values()) {
+            report(mode, corpus, queryVectors, exact);
+        }
+    }
+
+    private void report(QuantizationMode mode, float[][] corpus, float[][] queryVectors, int[][] exact) {
+        QuantizedVector[] encoded = new QuantizedVector[corpus.length];
+        float[][] decoded = new float[corpus.length][];
+
+        long encodeNanos = Long.MAX_VALUE;
+        long decodeNanos = Long.MAX_VALUE;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < corpus.length; i++) {
+                encoded[i] = VectorQuantizer.quantize(corpus[i], mode);
+            }
+            long mid = System.nanoTime();
+            for (int i = 0; i < corpus.length; i++) {
+                decoded[i] = VectorQuantizer.dequantize(encoded[i]);
+            }
+            long end = System.nanoTime();
+            encodeNanos = Math.min(encodeNanos, mid - start);
+            decodeNanos = Math.min(decodeNanos, end - mid);
+        }
+
+        double maxError = 0;
+        for (int i = 0; i < corpus.length; i++) {
+            for (int d = 0; d < dimension; d++) {
+                maxError = Math.max(maxError, Math.abs(corpus[i][d] - decoded[i][d]));
+            }
+        }
+
+        long hits = 0;
+        for (int q = 0; q < queryVectors.length; q++) {
+            hits += SyntheticCorpus.overlap(exact[q], SyntheticCorpus.topK(queryVectors[q], decoded, k));
+        }
+        double recall = (double) hits / ((long) queryVectors.length * k);
+
+        // Payload only; the int8 scale adds 4 bytes per vector
+        int bytes = encoded[0].getData().length + (mode == QuantizationMode.INT8 ? Float.BYTES : 0);
+        int fullBytes = dimension * Float.BYTES;
+        System.out.printf("%-8s %12d %9.1f%% %12.4f %14d %14d %12.2e%n",
+                mode, bytes, 100.0 * (fullBytes - bytes) / fullBytes, recall,
+                encodeNanos / corpus.length, decodeNanos / corpus.length, maxError);
+    }
+}
@@ -0,0 +1,87 @@
+package com.reposync.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic unit vectors drawn around random cluster centres, which is closer to real embedding
+ * distributions than uniform noise, and exact brute-force top-k over them as ground truth.
+ * Vectors are unit length, so the dot product is the cosine similarity.
+ */
+final class SyntheticCorpus {
+
+    private SyntheticCorpus() {
+    }
+
+    /**
+     * @param centres cluster centres to draw around, or null for uniformly random directions
+     * @param noise   norm of the noise added to a centre before normalising
+     */
+    static float[][] randomUnitVectors(Random random, int count, int dimension, float[][] centres, float noise) {
+        float[][] result = new float[count][dimension];
+        for (int n = 0; n < count; n++) {
+            float[] centre = centres != null ? centres[random.nextInt(centres.length)] : null;
+            double norm = 0;
+            for (int d = 0; d < dimension; d++) {
+                float value = (float) random.nextGaussian();
+                if (centre != null) {
+                    // Noise vector of norm ~noise around the unit-length centre
+                    value = centre[d] + noise * value / (float) Math.sqrt(dimension);
+                }
+                result[n][d] = value;
+                norm += value * value;
+            }
+            float inverse = (float) (1.0 / Math.sqrt(norm));
+            for (int d = 0; d < dimension; d++) {
+                result[n][d] *= inverse;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indexes of the k corpus vectors most similar to the query, best first.
+     */
+    static int[] topK(float[] query, float[][] corpus, int k) {
+        int[] ids = new int[k];
+        float[] scores = new float[k];
+        Arrays.fill(ids, -1);
+        Arrays.fill(scores, Float.NEGATIVE_INFINITY);
+        for (int i = 0; i < corpus.length; i++) {
+            float score = dot(query, corpus[i]);
+            if (score <= scores[k - 1]) {
+                continue;
+            }
+            int pos = k - 1;
+            while (pos > 0 && scores[pos - 1] < score) {
+                scores[pos] = scores[pos - 1];
+                ids[pos] = ids[pos - 1];
+                pos--;
+            }
+            scores[pos] = score;
+            ids[pos] = i;
+        }
+        return ids;
+    }
+
+    static int overlap(int[] expected, int[] actual) {
+        int hits = 0;
+        for (int id : actual) {
+            for (int e : expected) {
+                if (id == e) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    static float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
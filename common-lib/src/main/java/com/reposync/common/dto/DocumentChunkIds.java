@@ -0,0 +1,22 @@
+package com.reposync.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The chunk ids a sync produced for one document; its other rows in Milvus are stale.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentChunkIds implements Serializable {
+    private String repository;
+    private String filePath;
+    private List<String> chunkIds;
+}
@@ -0,0 +1,36 @@
+package com.reposync.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of chunks submitted to the embedding service's work queue.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddingJob implements Serializable {
+    private String jobId;
+    private String collection;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private Integer totalChunks;
+    private Integer embeddedChunks;
+    private Integer failedChunks;
+    private Integer totalBatches;
+    private Integer completedBatches;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private String errorMessage;
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return "COMPLETED".equals(status) || "FAILED".equals(status);
+    }
+}
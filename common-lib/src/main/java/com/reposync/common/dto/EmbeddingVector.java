@@ -1,12 +1,16 @@
 package com.reposync.common.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.reposync.common.json.FloatArrayDeserializer;
+import com.reposync.common.json.FloatArraySerializer;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
-import java.util.List;
 import java.util.Map;
 
 @Data
@@ -15,7 +19,20 @@ import java.util.Map;
 @AllArgsConstructor
 public class EmbeddingVector implements Serializable {
     private String id;
-    private List<Float> vector;
+    // Primitive array: ~6 KB for 1536 dimensions instead of ~25 KB of boxed Floats
+    @JsonSerialize(using = FloatArraySerializer.class)
+    @JsonDeserialize(using = FloatArrayDeserializer.class)
+    private float[] vector;
     private Map<String, String> metadata;
+    // Set instead of vector when the embedding service runs with quantization enabled
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private QuantizedVector quantized;
+
+    public int dimension() {
+        if (vector != null) {
+            return vector.length;
+        }
+        return quantized != null ? quantized.getDimension() : 0;
+    }
 }
 
@@ -0,0 +1,46 @@
+package com.reposync.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A named vector index configuration: the Milvus index type, the parameters it is built with and
+ * the search parameters that go with it (ef for HNSW, nprobe for IVF, search_list for DiskANN).
+ * milvus-service builds collections from these and the benchmark module compares them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexProfile {
+    private String indexType;
+    @Builder.Default
+    private Map<String, Object> buildParams = new LinkedHashMap<>();
+    @Builder.Default
+    private Map<String, Object> searchParams = new LinkedHashMap<>();
+
+    /**
+     * Profiles available without configuration. autoindex is the only one Zilliz Cloud accepts;
+     * the rest need a self-hosted Milvus (diskann also needs a disk-backed query node). IVF_PQ's
+     * m must divide the vector dimension; 16 divides 768, 1536 and 3072.
+     */
+    public static Map<String, IndexProfile> builtIn() {
+        Map<String, IndexProfile> profiles = new LinkedHashMap<>();
+        profiles.put("autoindex", of("AUTOINDEX", Map.of(), Map.of()));
+        profiles.put("hnsw", of("HNSW", Map.of("M", 16, "efConstruction", 200), Map.of("ef", 64)));
+        profiles.put("ivf-flat", of("IVF_FLAT", Map.of("nlist", 1024), Map.of("nprobe", 16)));
+        profiles.put("ivf-sq8", of("IVF_SQ8", Map.of("nlist", 1024), Map.of("nprobe", 16)));
+        profiles.put("ivf-pq", of("IVF_PQ", Map.of("nlist", 1024, "m", 16, "nbits", 8), Map.of("nprobe", 16)));
+        profiles.put("diskann", of("DISKANN", Map.of(), Map.of("search_list", 100)));
+        return profiles;
+    }
+
+    private static IndexProfile of(String indexType, Map<String, Object> buildParams, Map<String, Object> searchParams) {
+        return new IndexProfile(indexType, new LinkedHashMap<>(buildParams), new LinkedHashMap<>(searchParams));
+    }
+}
@@ -0,0 +1,24 @@
+package com.reposync.common.dto;
+
+import com.reposync.common.util.QuantizationMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Compact form of an embedding produced by {@link com.reposync.common.util.VectorQuantizer}.
+ * For INT8 a component is {@code data[i] * scale}; FLOAT16 data is little-endian half floats.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuantizedVector implements Serializable {
+    private QuantizationMode mode;
+    private int dimension;
+    private float scale;
+    private byte[] data;
+}
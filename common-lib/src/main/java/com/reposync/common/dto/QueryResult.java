@@ -0,0 +1,21 @@
+package com.reposync.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryResult {
+    private String query;
+    // Best match first; metadata identifies the chunk (repository, file_path, ...)
+    private List<SearchHit> hits;
+    private boolean embeddingCached;
+    private boolean searchCached;
+    private long tookMs;
+}
@@ -0,0 +1,29 @@
+package com.reposync.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A blue/green rebuild of the collection behind an alias: vectors go into targetCollection while
+ * readers keep using the alias, which is switched once the new collection is indexed and loaded.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReindexStatus implements Serializable {
+    private String alias;
+    private String targetCollection;
+    // Collection the alias pointed to before the switch, dropped after the grace period
+    private String previousCollection;
+    private String status; // BUILDING, INDEXING, SWITCHED, ABORTED, FAILED
+    private LocalDateTime startedAt;
+    private LocalDateTime switchedAt;
+    private LocalDateTime previousDropAt;
+    private String errorMessage;
+}
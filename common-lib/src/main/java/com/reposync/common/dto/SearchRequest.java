@@ -0,0 +1,28 @@
+package com.reposync.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchRequest {
+    // Defaults to the service's configured collection
+    private String collectionName;
+    // One query vector, or several in vectors; results come back in the same order
+    private float[] vector;
+    private List<float[]> vectors;
+    private Integer topK;
+    // STRONG, SESSION, BOUNDED or EVENTUALLY
+    private String consistencyLevel;
+    // Milvus boolean expression, e.g. metadata["repository"] == "owner/repo" and metadata["file_type"] == "md"
+    private String filter;
+    // Index search params such as ef (HNSW) or nprobe (IVF); merged over the configured defaults
+    private Map<String, Object> searchParams;
+}
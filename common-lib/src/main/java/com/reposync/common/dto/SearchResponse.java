@@ -0,0 +1,19 @@
+package com.reposync.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResponse {
+    // One list of hits per query vector, best match first
+    private List<List<SearchHit>> results;
+    private boolean cached;
+    private long tookMs;
+}
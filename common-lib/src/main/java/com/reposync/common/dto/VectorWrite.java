@@ -0,0 +1,34 @@
+package com.reposync.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * An upsert request accepted into the Milvus service's write-ahead log, and whether it has
+ * reached Milvus yet.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorWrite implements Serializable {
+    private Long writeId;
+    private String collection;
+    private String status; // PENDING, COMMITTED, FAILED
+    private Integer vectors;
+    private Integer attempts;
+    private LocalDateTime acceptedAt;
+    private LocalDateTime committedAt;
+    private String errorMessage;
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return "COMMITTED".equals(status) || "FAILED".equals(status);
+    }
+}
@@ -0,0 +1,47 @@
+package com.reposync.common.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.reposync.common.util.FloatVectors;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads a float[] vector without boxing. Accepts a JSON number array, or a little-endian
+ * float32 block given either as native binary or as a base64 string.
+ */
+public class FloatArrayDeserializer extends StdDeserializer<float[]> {
+
+    private static final int INITIAL_CAPACITY = 1536;
+
+    public FloatArrayDeserializer() {
+        super(float[].class);
+    }
+
+    @Override
+    public float[] deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_STRING || token == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            return FloatVectors.fromBytes(p.getBinaryValue());
+        }
+        if (token != JsonToken.START_ARRAY) {
+            return (float[]) ctxt.handleUnexpectedToken(float[].class, p);
+        }
+
+        float[] values = new float[INITIAL_CAPACITY];
+        int size = 0;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                return (float[]) ctxt.handleUnexpectedToken(float[].class, p);
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = p.getFloatValue();
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+}
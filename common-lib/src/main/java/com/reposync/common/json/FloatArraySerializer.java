@@ -0,0 +1,33 @@
+package com.reposync.common.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.reposync.common.util.FloatVectors;
+
+import java.io.IOException;
+
+/**
+ * Writes a float[] vector straight from the primitive array. Binary formats such as CBOR get
+ * a raw little-endian float32 block (4 bytes per component); JSON gets a number array using
+ * the shortest decimal form of each float32 rather than widening to double.
+ */
+public class FloatArraySerializer extends StdSerializer<float[]> {
+
+    public FloatArraySerializer() {
+        super(float[].class);
+    }
+
+    @Override
+    public void serialize(float[] value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (gen.canWriteBinaryNatively()) {
+            gen.writeBinary(FloatVectors.toBytes(value));
+            return;
+        }
+        gen.writeStartArray(value, value.length);
+        for (float component : value) {
+            gen.writeNumber(component);
+        }
+        gen.writeEndArray();
+    }
+}
@@ -0,0 +1,43 @@
+package com.reposync.common.spool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A consumer's committed position in a {@link SegmentLog}, stored as a small text file that
+ * is replaced atomically and fsynced so a crash leaves either the old or the new value.
+ */
+@Slf4j
+public class OffsetCheckpoint {
+
+    private final Path file;
+
+    public OffsetCheckpoint(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * The committed offset, or the given default when nothing was committed yet or the file is
+     * empty or damaged (e.g. written by an older version without fsync before a crash).
+     */
+    public long read(long defaultOffset) throws IOException {
+        if (!Files.exists(file)) {
+            return defaultOffset;
+        }
+        String content = Files.readString(file, StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(content);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring unreadable checkpoint {} ('{}'), starting from offset {}", file, content, defaultOffset);
+            return defaultOffset;
+        }
+    }
+
+    public void write(long offset) throws IOException {
+        DurableFiles.replace(file, Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,305 @@
+package com.reposync.common.spool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record log split into segment files.
+ *
+ * A record's offset is its byte position in the log as a whole; each segment is named after
+ * the offset of its first record, so any offset maps to a segment and a position in it without
+ * an index. Records are framed as [length][crc32][payload]. On open, a torn or corrupt tail
+ * left by a crash is cut off at the last intact record.
+ *
+ * Consumers keep their own position (see {@link OffsetCheckpoint}) and call
+ * {@link #deleteBefore(long)} once everything below it has been processed.
+ */
+@Slf4j
+public class SegmentLog implements Closeable {
+
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private final Object syncLock = new Object();
+    private FileChannel active;
+    private long activeBase;
+    private long endOffset;
+    private volatile long syncedOffset;
+
+    /**
+     * @param segmentBytes size after which a new segment is started
+     * @param fsync        force every append to disk before returning
+     */
+    public SegmentLog(Path directory, long segmentBytes, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .forEach(file -> segments.put(baseOffset(file), file));
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, segmentPath(0));
+        }
+        activeBase = segments.lastKey();
+        active = FileChannel.open(segments.get(activeBase),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        endOffset = activeBase + recover(active);
+        syncedOffset = endOffset;
+        active.position(endOffset - activeBase);
+    }
+
+    /**
+     * Appends one record and returns its offset.
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        if (active.size() > 0 && active.size() + HEADER_BYTES + payload.length > segmentBytes) {
+            roll();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putInt(crc(payload)).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            active.write(buffer);
+        }
+        if (fsync) {
+            active.force(false);
+        }
+        long offset = endOffset;
+        endOffset += HEADER_BYTES + payload.length;
+        return offset;
+    }
+
+    /**
+     * Forces the record at the given offset and everything before it to disk. For logs opened
+     * without fsync: appenders that call this while another sync is running are covered by the
+     * next one, so concurrent appends share fsyncs instead of paying one each.
+     */
+    public void sync(long offset) throws IOException {
+        synchronized (syncLock) {
+            if (syncedOffset > offset) {
+                return;
+            }
+            FileChannel channel;
+            long end;
+            synchronized (this) {
+                channel = active;
+                end = endOffset;
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // Rolled over meanwhile, and roll() forced the segment before closing it,
+                // unless the log itself was closed
+                synchronized (this) {
+                    if (channel == active) {
+                        throw e;
+                    }
+                }
+            }
+            syncedOffset = end;
+        }
+    }
+
+    /**
+     * Reads the record at the given offset, or returns null when the offset is at the end of
+     * the log. An offset at the end of a segment continues with the next one.
+     *
+     * @throws CorruptRecordException when the record is damaged, which recovery only repairs at
+     *                                the tail of the active segment
+     */
+    public synchronized Record read(long offset) throws IOException {
+        if (offset >= endOffset) {
+            return null;
+        }
+        Map.Entry<Long, Path> segment = segments.floorEntry(offset);
+        if (segment == null) {
+            throw new IllegalArgumentException("Offset " + offset + " was already deleted");
+        }
+        long position = offset - segment.getKey();
+        if (segment.getKey() == activeBase) {
+            return readFrom(active, offset, position, endOffset);
+        }
+        long next = segments.higherKey(segment.getKey());
+        try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+            if (position >= channel.size()) {
+                return read(next);
+            }
+            return readFrom(channel, offset, position, next);
+        }
+    }
+
+    /**
+     * Deletes whole segments that end at or before the given offset. The active segment is
+     * always kept.
+     */
+    public synchronized void deleteBefore(long offset) throws IOException {
+        while (segments.size() > 1) {
+            Long base = segments.firstKey();
+            Long next = segments.higherKey(base);
+            if (next > offset) {
+                break;
+            }
+            Files.deleteIfExists(segments.remove(base));
+            log.debug("Deleted log segment {} in {}", base, directory);
+        }
+    }
+
+    public synchronized long endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Offset of the oldest record still on disk.
+     */
+    public synchronized long startOffset() {
+        return segments.firstKey();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        active.close();
+    }
+
+    private void roll() throws IOException {
+        active.force(false);
+        active.close();
+        activeBase = endOffset;
+        Path path = segmentPath(activeBase);
+        segments.put(activeBase, path);
+        active = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @param segmentEnd log offset where the segment ends, to resume at when the record's length
+     *                   cannot be trusted
+     */
+    private static Record readFrom(FileChannel channel, long offset, long position, long segmentEnd) throws IOException {
+        long size = channel.size();
+        if (position + HEADER_BYTES > size) {
+            throw new CorruptRecordException(offset, segmentEnd, "truncated header");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, position);
+        header.flip();
+        int length = header.getInt();
+        int crc = header.getInt();
+        if (length < 0 || position + HEADER_BYTES + length > size) {
+            throw new CorruptRecordException(offset, segmentEnd, "length " + length + " runs past the segment");
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, position + HEADER_BYTES);
+        if (crc(payload.array()) != crc) {
+            throw new CorruptRecordException(offset, offset + HEADER_BYTES + length, "checksum mismatch");
+        }
+        return new Record(offset, offset + HEADER_BYTES + length, payload.array());
+    }
+
+    /**
+     * Scans the segment and truncates it after the last intact record. Returns its valid size.
+     */
+    private long recover(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int crc = header.getInt();
+            if (length < 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + HEADER_BYTES);
+            if (crc(payload.array()) != crc) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        if (position < size) {
+            log.warn("Truncating {} bytes of incomplete records from {}", size - position, segments.get(activeBase));
+            channel.truncate(position);
+            channel.force(true);
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment at position " + position);
+            }
+        }
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("%020d%s", base, SUFFIX));
+    }
+
+    private static long baseOffset(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new UncheckedIOException(new IOException("Unexpected file in log directory: " + file));
+        }
+    }
+
+    /**
+     * A record and the offset of the one after it.
+     */
+    public record Record(long offset, long nextOffset, byte[] payload) {
+    }
+
+    /**
+     * A damaged record. Reading can go on at the resume offset: right after the record when only
+     * its payload is damaged, else at the end of its segment, skipping whatever followed it there.
+     */
+    public static class CorruptRecordException extends IOException {
+
+        private final long offset;
+        private final long resumeOffset;
+
+        public CorruptRecordException(long offset, long resumeOffset, String reason) {
+            super("Corrupt record at offset " + offset + ": " + reason);
+            this.offset = offset;
+            this.resumeOffset = resumeOffset;
+        }
+
+        public long offset() {
+            return offset;
+        }
+
+        public long resumeOffset() {
+            return resumeOffset;
+        }
+    }
+}
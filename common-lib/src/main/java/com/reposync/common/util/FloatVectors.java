@@ -0,0 +1,69 @@
+package com.reposync.common.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Helpers for primitive float[] vectors.
+ */
+public final class FloatVectors {
+
+    private FloatVectors() {
+    }
+
+    public static float[] fromDoubles(List<Double> values) {
+        float[] vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = values.get(i).floatValue();
+        }
+        return vector;
+    }
+
+    /**
+     * Read-only List view over the array for APIs that insist on List&lt;Float&gt; (e.g. the
+     * Milvus SDK). Elements are boxed one at a time as they are read instead of all up front.
+     */
+    public static List<Float> asList(float[] vector) {
+        return new FloatListView(vector);
+    }
+
+    /**
+     * Packs the vector as little-endian float32, the layout used for binary transport.
+     */
+    public static byte[] toBytes(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    public static float[] fromBytes(byte[] bytes) {
+        if (bytes.length % Float.BYTES != 0) {
+            throw new IllegalArgumentException("Binary vector length " + bytes.length + " is not a multiple of 4");
+        }
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private static final class FloatListView extends AbstractList<Float> implements RandomAccess {
+
+        private final float[] values;
+
+        private FloatListView(float[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Float get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+}
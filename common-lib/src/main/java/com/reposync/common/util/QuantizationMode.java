@@ -0,0 +1,24 @@
+package com.reposync.common.util;
+
+/**
+ * How embedding components are encoded on the wire.
+ */
+public enum QuantizationMode {
+
+    /** Full float32, 4 bytes per component. */
+    NONE(4),
+    /** IEEE 754 half precision, 2 bytes per component. */
+    FLOAT16(2),
+    /** Symmetric scalar quantization with one scale per vector, 1 byte per component. */
+    INT8(1);
+
+    private final int bytesPerComponent;
+
+    QuantizationMode(int bytesPerComponent) {
+        this.bytesPerComponent = bytesPerComponent;
+    }
+
+    public int getBytesPerComponent() {
+        return bytesPerComponent;
+    }
+}
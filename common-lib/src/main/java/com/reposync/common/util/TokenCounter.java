@@ -0,0 +1,38 @@
+package com.reposync.common.util;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+
+/**
+ * Local tokenizer for estimating how many tokens a text costs on the embedding model.
+ * Uses cl100k_base, the encoding of text-embedding-ada-002 and the text-embedding-3 family.
+ */
+public final class TokenCounter {
+
+    private static final Encoding ENCODING = Encodings.newLazyEncodingRegistry()
+            .getEncoding(EncodingType.CL100K_BASE);
+
+    private TokenCounter() {
+    }
+
+    public static int countTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        // Ordinary encoding treats "<|endoftext|>" and friends as plain text instead of failing
+        return ENCODING.countTokensOrdinary(text);
+    }
+
+    /**
+     * Cuts the text down to at most maxTokens tokens. Returns the text unchanged when it fits.
+     */
+    public static String truncate(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        EncodingResult result = ENCODING.encodeOrdinary(text, maxTokens);
+        return result.isTruncated() ? ENCODING.decode(result.getTokens()) : text;
+    }
+}
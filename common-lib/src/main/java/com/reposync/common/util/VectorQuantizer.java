@@ -0,0 +1,117 @@
+package com.reposync.common.util;
+
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.QuantizedVector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Float16 and int8 encode/decode for embedding vectors.
+ *
+ * The loops are kept branch-free over primitive arrays so C2 can auto-vectorize them
+ * ({@link Float#floatToFloat16} and {@link Float#float16ToFloat} are intrinsics on JDK 21).
+ */
+public final class VectorQuantizer {
+
+    private static final float INT8_MAX = 127f;
+
+    private VectorQuantizer() {
+    }
+
+    public static QuantizedVector quantize(float[] vector, QuantizationMode mode) {
+        return switch (mode) {
+            case NONE -> QuantizedVector.builder()
+                    .mode(mode).dimension(vector.length).scale(1f).data(FloatVectors.toBytes(vector)).build();
+            case FLOAT16 -> QuantizedVector.builder()
+                    .mode(mode).dimension(vector.length).scale(1f).data(toFloat16(vector)).build();
+            case INT8 -> {
+                float scale = int8Scale(vector);
+                yield QuantizedVector.builder()
+                        .mode(mode).dimension(vector.length).scale(scale).data(toInt8(vector, scale)).build();
+            }
+        };
+    }
+
+    public static float[] dequantize(QuantizedVector quantized) {
+        byte[] data = quantized.getData();
+        int expected = quantized.getDimension() * quantized.getMode().getBytesPerComponent();
+        if (data == null || data.length != expected) {
+            throw new IllegalArgumentException("Quantized " + quantized.getMode() + " vector of dimension "
+                    + quantized.getDimension() + " needs " + expected + " bytes, got "
+                    + (data == null ? 0 : data.length));
+        }
+        return switch (quantized.getMode()) {
+            case NONE -> FloatVectors.fromBytes(data);
+            case FLOAT16 -> fromFloat16(data);
+            case INT8 -> fromInt8(data, quantized.getScale());
+        };
+    }
+
+    /**
+     * Replaces the float32 vector with its quantized form. NONE leaves the vector untouched.
+     */
+    public static EmbeddingVector encode(EmbeddingVector vector, QuantizationMode mode) {
+        if (mode != QuantizationMode.NONE && vector != null && vector.getVector() != null) {
+            vector.setQuantized(quantize(vector.getVector(), mode));
+            vector.setVector(null);
+        }
+        return vector;
+    }
+
+    /**
+     * Restores the float32 vector if it arrived quantized.
+     */
+    public static EmbeddingVector decode(EmbeddingVector vector) {
+        if (vector != null && vector.getVector() == null && vector.getQuantized() != null) {
+            vector.setVector(dequantize(vector.getQuantized()));
+            vector.setQuantized(null);
+        }
+        return vector;
+    }
+
+    static byte[] toFloat16(float[] vector) {
+        short[] halves = new short[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            halves[i] = Float.floatToFloat16(vector[i]);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(halves.length * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asShortBuffer().put(halves);
+        return buffer.array();
+    }
+
+    static float[] fromFloat16(byte[] data) {
+        short[] halves = new short[data.length / Short.BYTES];
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(halves);
+        float[] vector = new float[halves.length];
+        for (int i = 0; i < halves.length; i++) {
+            vector[i] = Float.float16ToFloat(halves[i]);
+        }
+        return vector;
+    }
+
+    static float int8Scale(float[] vector) {
+        float maxAbs = 0f;
+        for (float component : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(component));
+        }
+        return maxAbs == 0f ? 1f : maxAbs / INT8_MAX;
+    }
+
+    static byte[] toInt8(float[] vector, float scale) {
+        float inverse = 1f / scale;
+        byte[] data = new byte[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            data[i] = (byte) Math.round(vector[i] * inverse);
+        }
+        return data;
+    }
+
+    static float[] fromInt8(byte[] data, float scale) {
+        float[] vector = new float[data.length];
+        for (int i = 0; i < data.length; i++) {
+            vector[i] = data[i] * scale;
+        }
+        return vector;
+    }
+}
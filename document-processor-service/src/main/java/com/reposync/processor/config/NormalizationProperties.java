@@ -0,0 +1,30 @@
+package com.reposync.processor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Which kinds of markup noise are removed from documents before they are chunked.
+ * Fenced code blocks are never touched.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "normalization")
+public class NormalizationProperties {
+
+    private boolean enabled = true;
+    private boolean stripHtmlComments = true;
+    private boolean stripHtmlTags = true;
+    private boolean stripBadges = true;
+    // Markdown images become their alt text; inline data: URIs are dropped entirely
+    private boolean stripImages = true;
+    // [text](url) becomes text
+    private boolean stripLinkTargets = true;
+    private boolean stripTableOfContents = true;
+    // Bare URLs longer than this are cut down to scheme and host; 0 keeps them as they are
+    private int maxUrlLength = 80;
+    private boolean collapseWhitespace = true;
+    // Count tokens before and after so the savings show up in metrics and logs
+    private boolean recordTokenSavings = true;
+}
@@ -3,6 +3,7 @@ package com.reposync.processor.controller;
 import com.reposync.common.dto.DocumentContent;
 import com.reposync.common.dto.TextChunk;
 import com.reposync.processor.service.ChunkingService;
+import com.reposync.processor.service.TextNormalizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +18,7 @@ import java.util.List;
 public class DocumentProcessorController {
 
     private final ChunkingService chunkingService;
+    private final TextNormalizer textNormalizer;
 
     @PostMapping("/chunk")
     public ResponseEntity<List<TextChunk>> chunkDocument(@RequestBody DocumentContent document) {
@@ -34,6 +36,14 @@ public class DocumentProcessorController {
         return ResponseEntity.ok(allChunks);
     }
 
+    /**
+     * Shows what the document looks like after normalization, for tuning the rules.
+     */
+    @PostMapping("/normalize")
+    public ResponseEntity<String> normalizeDocument(@RequestBody DocumentContent document) {
+        return ResponseEntity.ok(textNormalizer.normalize(document));
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Document Processor Service is running");
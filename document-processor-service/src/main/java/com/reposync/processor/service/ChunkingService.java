@@ -2,17 +2,27 @@ package com.reposync.processor.service;
 
 import com.reposync.common.dto.DocumentContent;
 import com.reposync.common.dto.TextChunk;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class ChunkingService {
 
+    // Milvus id field is a VarChar(512)
+    private static final int MAX_CHUNK_ID_LENGTH = 512;
+
+    private final TextNormalizer textNormalizer;
+
     @Value("${chunking.chunk-size:1000}")
     private int chunkSize;
 
@@ -26,7 +36,12 @@ public class ChunkingService {
         }
 
         List<TextChunk> chunks = new ArrayList<>();
-        String content = document.getContent();
+        // Strip badges, HTML, link targets etc. from markdown first so they don't cost embedding tokens
+        String content = textNormalizer.normalize(document);
+        if (content.isBlank()) {
+            log.warn("Document {} is empty after normalization", document.getFilePath());
+            return Collections.emptyList();
+        }
 
         // Split by paragraphs first for better semantic preservation
         List<String> paragraphs = splitIntoParagraphs(content);
@@ -92,6 +107,27 @@ public class ChunkingService {
         return text.substring(text.length() - overlap);
     }
 
+    /**
+     * Chunk ids come from the file path, not the file name: the same file name in several
+     * directories (a root openapi.yaml next to docs/openapi.yaml) would otherwise share ids and
+     * overwrite each other's rows on upsert.
+     */
+    private static String chunkId(DocumentContent document, int index) {
+        String path = document.getFilePath() != null ? document.getFilePath() : document.getFileName();
+        String chunkId = String.format("%s_%s_%d", document.getRepositoryName().replace("/", "_"), path, index);
+        if (chunkId.length() <= MAX_CHUNK_ID_LENGTH) {
+            return chunkId;
+        }
+        // Too long for the Milvus primary key; a hash of repository and path is just as unique
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((document.getRepositoryName() + "/" + path).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest) + "_" + index;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     private TextChunk createTextChunk(DocumentContent document, String content, int index) {
         Map<String, String> metadata = new HashMap<>();
         metadata.put("repository", document.getRepositoryName());
@@ -100,11 +136,7 @@ public class ChunkingService {
         metadata.put("file_type", document.getFileType());
         metadata.put("sha", document.getSha());
 
-        String chunkId = String.format("%s_%s_%d",
-            document.getRepositoryName().replace("/", "_"),
-            document.getFileName(),
-            index
-        );
+        String chunkId = chunkId(document, index);
 
         return TextChunk.builder()
                 .chunkId(chunkId)
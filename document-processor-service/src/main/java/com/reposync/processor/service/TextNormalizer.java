@@ -0,0 +1,228 @@
+package com.reposync.processor.service;
+
+import com.reposync.common.dto.DocumentContent;
+import com.reposync.common.util.TokenCounter;
+import com.reposync.processor.config.NormalizationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Removes markup that costs embedding tokens without carrying meaning: badges, images, inline
+ * base64 data, HTML tags and comments, link targets, long URLs and tables of contents.
+ *
+ * Works in one pass over the lines of the document. Fenced code blocks are copied verbatim.
+ * Only README and markdown documents are normalized; API definitions are structured specs whose
+ * URLs, {@code $ref}s and markup must reach the index unchanged.
+ */
+@Slf4j
+@Service
+public class TextNormalizer {
+
+    private static final Pattern FENCE = Pattern.compile("^\\s*(```|~~~)");
+    private static final Pattern TOC_HEADING = Pattern.compile(
+            "^\\s*#{1,6}\\s*(table of contents|contents|toc)\\s*:?\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TOC_ENTRY = Pattern.compile(
+            "^\\s*(?:[-*+]|\\d+\\.)\\s*\\[[^\\]]*]\\(#[^)]*\\)\\s*$");
+    private static final Pattern DATA_URI = Pattern.compile("data:[\\w/+.-]+;base64,[A-Za-z0-9+/=]+");
+    private static final Pattern LINKED_IMAGE = Pattern.compile("\\[!\\[[^\\]]*]\\([^)]*\\)]\\([^)]*\\)");
+    private static final Pattern BADGE_IMAGE = Pattern.compile(
+            "!\\[[^\\]]*]\\([^)]*(?:shields\\.io|badge|travis-ci|codecov|circleci|badgen|/workflows/)[^)]*\\)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern IMAGE = Pattern.compile("!\\[([^\\]]*)]\\([^)]*\\)");
+    private static final Pattern HTML_IMAGE = Pattern.compile("<img\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HTML_ALT = Pattern.compile("\\balt\\s*=\\s*\"([^\"]*)\"", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LINK = Pattern.compile("\\[([^\\]]+)]\\((?:[^)\\s]+)(?:\\s+\"[^\"]*\")?\\)");
+    private static final Pattern LINK_DEFINITION = Pattern.compile("^\\s*\\[[^\\]]+]:\\s*\\S+.*$");
+    // Only real HTML element names, so generics such as List<String> in API docs survive
+    private static final Pattern HTML_TAG = Pattern.compile(
+            "</?(?:a|abbr|b|blockquote|br|center|code|details|div|em|figcaption|figure|font|h[1-6]|hr|i|kbd"
+                    + "|li|ol|p|picture|pre|section|small|source|span|strong|sub|summary|sup|table|tbody|td"
+                    + "|th|thead|tr|u|ul|video)\\b[^<>]*/?>",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern URL = Pattern.compile("(https?)://([^/\\s)>\\]]+)[^\\s)>\\]]*");
+    private static final Pattern SPACES = Pattern.compile("(?<=\\S)[ \\t]{2,}");
+
+    private final NormalizationProperties properties;
+    private final Counter tokensBeforeCounter;
+    private final Counter tokensAfterCounter;
+    private final DistributionSummary savedSummary;
+
+    public TextNormalizer(NormalizationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tokensBeforeCounter = Counter.builder("processor.normalization.tokens")
+                .description("Document tokens around text normalization")
+                .tag("stage", "before")
+                .register(meterRegistry);
+        this.tokensAfterCounter = Counter.builder("processor.normalization.tokens")
+                .description("Document tokens around text normalization")
+                .tag("stage", "after")
+                .register(meterRegistry);
+        this.savedSummary = DistributionSummary.builder("processor.normalization.tokens.saved")
+                .description("Tokens removed from a document by text normalization")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Normalized content of the document, or its content unchanged when it is not markdown;
+     * records the token savings when enabled.
+     */
+    public String normalize(DocumentContent document) {
+        String content = document.getContent();
+        if (!properties.isEnabled() || content == null || content.isEmpty() || !isMarkdown(document)) {
+            return content;
+        }
+        String normalized = normalize(content);
+
+        if (properties.isRecordTokenSavings()) {
+            int before = TokenCounter.countTokens(content);
+            int after = TokenCounter.countTokens(normalized);
+            tokensBeforeCounter.increment(before);
+            tokensAfterCounter.increment(after);
+            savedSummary.record(before - after);
+            log.info("Normalized {}/{}: {} -> {} tokens ({}% saved)", document.getRepositoryName(),
+                    document.getFilePath(), before, after, before == 0 ? 0 : (before - after) * 100 / before);
+        }
+        return normalized;
+    }
+
+    public String normalize(String content) {
+        StringBuilder out = new StringBuilder(content.length());
+        boolean inFence = false;
+        boolean inComment = false;
+        boolean inToc = false;
+        boolean lastBlank = true;
+
+        for (String line : content.split("\\r?\\n", -1)) {
+            boolean fence = FENCE.matcher(line).find();
+            if (inFence || fence) {
+                if (fence) {
+                    inFence = !inFence;
+                }
+                out.append(line).append('\n');
+                lastBlank = false;
+                continue;
+            }
+
+            if (properties.isStripHtmlComments()) {
+                StringBuilder kept = new StringBuilder();
+                inComment = stripComments(line, inComment, kept);
+                line = kept.toString();
+            }
+
+            if (properties.isStripTableOfContents()) {
+                if (TOC_HEADING.matcher(line).matches()) {
+                    inToc = true;
+                    continue;
+                }
+                if (TOC_ENTRY.matcher(line).matches()) {
+                    continue;
+                }
+                if (inToc) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    inToc = false;
+                }
+            }
+
+            line = normalizeLine(line);
+
+            if (properties.isCollapseWhitespace()) {
+                line = SPACES.matcher(line).replaceAll(" ").stripTrailing();
+                if (line.isBlank()) {
+                    if (lastBlank) {
+                        continue;
+                    }
+                    line = "";
+                }
+            }
+            lastBlank = line.isBlank();
+            out.append(line).append('\n');
+        }
+        return out.toString().strip();
+    }
+
+    private static boolean isMarkdown(DocumentContent document) {
+        String path = document.getFilePath() == null ? "" : document.getFilePath().toLowerCase(Locale.ROOT);
+        return "README".equals(document.getFileType()) || path.endsWith(".md") || path.endsWith(".markdown");
+    }
+
+    private String normalizeLine(String line) {
+        line = DATA_URI.matcher(line).replaceAll("");
+        if (properties.isStripBadges()) {
+            line = LINKED_IMAGE.matcher(line).replaceAll("");
+            line = BADGE_IMAGE.matcher(line).replaceAll("");
+        }
+        if (properties.isStripImages()) {
+            line = IMAGE.matcher(line).replaceAll("$1");
+            line = replace(HTML_IMAGE, line, match -> {
+                Matcher alt = HTML_ALT.matcher(match);
+                return alt.find() ? alt.group(1) : "";
+            });
+        }
+        if (properties.isStripLinkTargets()) {
+            if (LINK_DEFINITION.matcher(line).matches()) {
+                return "";
+            }
+            line = LINK.matcher(line).replaceAll("$1");
+        }
+        if (properties.isStripHtmlTags()) {
+            line = HTML_TAG.matcher(line).replaceAll("").replace("&nbsp;", " ");
+        }
+        if (properties.getMaxUrlLength() > 0) {
+            int max = properties.getMaxUrlLength();
+            line = replace(URL, line, match -> match.length() <= max ? match
+                    : URL.matcher(match).replaceFirst("$1://$2/…"));
+        }
+        return line;
+    }
+
+    /**
+     * Appends the parts of the line outside HTML comments and returns whether a comment is
+     * still open at the end of it.
+     */
+    private static boolean stripComments(String line, boolean inComment, StringBuilder kept) {
+        int position = 0;
+        while (position < line.length()) {
+            if (inComment) {
+                int end = line.indexOf("-->", position);
+                if (end < 0) {
+                    return true;
+                }
+                position = end + 3;
+                inComment = false;
+            } else {
+                int start = line.indexOf("<!--", position);
+                if (start < 0) {
+                    kept.append(line, position, line.length());
+                    return false;
+                }
+                kept.append(line, position, start);
+                position = start + 4;
+                inComment = true;
+            }
+        }
+        return inComment;
+    }
+
+    private static String replace(Pattern pattern, String line, Function<String, String> replacement) {
+        Matcher matcher = pattern.matcher(line);
+        if (!matcher.find()) {
+            return line;
+        }
+        StringBuilder result = new StringBuilder();
+        do {
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement.apply(matcher.group())));
+        } while (matcher.find());
+        matcher.appendTail(result);
+        return result.toString();
+    }
+}
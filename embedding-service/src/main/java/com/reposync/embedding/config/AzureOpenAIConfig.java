@@ -1,27 +1,112 @@
 package com.reposync.embedding.config;
 
-import com.azure.ai.openai.OpenAIClient;
 import com.azure.ai.openai.OpenAIClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.policy.AddHeadersPolicy;
+import com.reposync.embedding.dispatch.AzureEndpoint;
+import com.reposync.embedding.dispatch.AzureEndpointPool;
+import com.reposync.embedding.dispatch.EmbeddingErrorClassifier;
+import com.reposync.embedding.dispatch.TokenBucketRateLimiter;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
 @Configuration
 public class AzureOpenAIConfig {
 
-    @Value("${azure.openai.endpoint}")
+    private static final HttpHeaderName API_KEY_HEADER = HttpHeaderName.fromString("api-key");
+
+    @Value("${azure.openai.endpoint:}")
     private String endpoint;
 
-    @Value("${azure.openai.api-key}")
+    @Value("${azure.openai.api-key:}")
     private String apiKey;
 
+    @Value("${azure.openai.embeddings-deployment:}")
+    private String embeddingsDeployment;
+
+    @Value("${azure.openai.rate-limit.requests-per-minute:300}")
+    private int requestsPerMinute;
+
+    @Value("${azure.openai.rate-limit.tokens-per-minute:240000}")
+    private int tokensPerMinute;
+
+    /**
+     * One sync and one async client per configured deployment, each with its own quota and
+     * circuit breaker.
+     */
     @Bean
-    public OpenAIClient openAIClient() {
-        return new OpenAIClientBuilder()
-                .endpoint(endpoint)
-                .credential(new AzureKeyCredential(apiKey))
-                .buildClient();
+    public AzureEndpointPool azureEndpointPool(AzureOpenAIProperties properties, MeterRegistry meterRegistry) {
+        List<AzureOpenAIProperties.Endpoint> configured = properties.getEndpoints();
+        if (configured.isEmpty()) {
+            configured = List.of(defaultEndpoint());
+        }
+
+        CircuitBreakerConfig breakerConfig = circuitBreakerConfig(properties.getCircuitBreaker());
+        List<AzureEndpoint> endpoints = new ArrayList<>(configured.size());
+        for (int i = 0; i < configured.size(); i++) {
+            endpoints.add(buildEndpoint(configured.get(i), i, breakerConfig));
+        }
+        return new AzureEndpointPool(endpoints, meterRegistry);
+    }
+
+    private AzureOpenAIProperties.Endpoint defaultEndpoint() {
+        AzureOpenAIProperties.Endpoint single = new AzureOpenAIProperties.Endpoint();
+        single.setName("default");
+        single.setEndpoint(endpoint);
+        single.setApiKey(apiKey);
+        single.setDeployment(embeddingsDeployment);
+        return single;
     }
-}
 
+    private AzureEndpoint buildEndpoint(AzureOpenAIProperties.Endpoint config, int index,
+                                        CircuitBreakerConfig breakerConfig) {
+        if (isBlank(config.getEndpoint()) || isBlank(config.getApiKey()) || isBlank(config.getDeployment())) {
+            throw new IllegalStateException("Azure OpenAI endpoint #" + index
+                    + " needs endpoint, api-key and deployment");
+        }
+        String name = isBlank(config.getName()) ? "endpoint-" + index : config.getName();
+        OpenAIClientBuilder builder = new OpenAIClientBuilder().endpoint(config.getEndpoint());
+        if (config.getEndpoint().startsWith("http://")) {
+            // The SDK refuses key credentials over plain HTTP; only local stub servers are expected here
+            log.warn("Azure OpenAI endpoint '{}' uses plain HTTP ({}), sending the api-key header without TLS",
+                    name, config.getEndpoint());
+            builder.addPolicy(new AddHeadersPolicy(new HttpHeaders().set(API_KEY_HEADER, config.getApiKey())));
+        } else {
+            builder.credential(new AzureKeyCredential(config.getApiKey()));
+        }
+
+        int rpm = config.getRequestsPerMinute() != null ? config.getRequestsPerMinute() : requestsPerMinute;
+        int tpm = config.getTokensPerMinute() != null ? config.getTokensPerMinute() : tokensPerMinute;
+
+        return new AzureEndpoint(name, config.getDeployment(), config.getWeight(),
+                builder.buildClient(), builder.buildAsyncClient(),
+                new TokenBucketRateLimiter(rpm, tpm),
+                CircuitBreaker.of("azure-openai-" + name, breakerConfig));
+    }
+
+    private static CircuitBreakerConfig circuitBreakerConfig(AzureOpenAIProperties.CircuitBreaker config) {
+        return CircuitBreakerConfig.custom()
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .slidingWindowSize(config.getSlidingWindowSize())
+                .minimumNumberOfCalls(config.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(config.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(config.getPermittedCallsInHalfOpenState())
+                .recordException(EmbeddingErrorClassifier::isEndpointFailure)
+                .build();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,66 @@
+package com.reposync.embedding.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Azure OpenAI deployments to spread embedding requests over. When no endpoints are listed,
+ * the single azure.openai.endpoint / api-key / embeddings-deployment is used.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "azure.openai")
+public class AzureOpenAIProperties {
+
+    private List<Endpoint> endpoints = new ArrayList<>();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Hedging hedging = new Hedging();
+
+    /**
+     * One deployment. Rate limits default to azure.openai.rate-limit; weight biases
+     * least-loaded routing towards larger deployments.
+     */
+    @Data
+    public static class Endpoint {
+
+        private String name;
+        private String endpoint;
+        private String apiKey;
+        private String deployment;
+        private int weight = 1;
+        private Integer requestsPerMinute;
+        private Integer tokensPerMinute;
+    }
+
+    /**
+     * Per-endpoint breaker over server errors and timeouts. Throttling and rejected inputs do
+     * not count as failures.
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        private float failureRateThreshold = 50;
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+        private int permittedCallsInHalfOpenState = 2;
+    }
+
+    /**
+     * Sends a second copy of a request to another endpoint once it has been outstanding longer
+     * than the given latency percentile of its endpoint; the first response wins.
+     */
+    @Data
+    public static class Hedging {
+
+        private boolean enabled = false;
+        private double percentile = 0.95;
+        private int minSamples = 20;
+        private Duration minDelay = Duration.ofMillis(200);
+    }
+}
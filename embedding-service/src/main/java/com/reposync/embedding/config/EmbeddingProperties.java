@@ -0,0 +1,110 @@
+package com.reposync.embedding.config;
+
+import com.reposync.common.util.QuantizationMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Embedding provider selection and settings for the local providers.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "embedding")
+public class EmbeddingProperties {
+
+    private Routing routing = new Routing();
+    private Hashing hashing = new Hashing();
+    private Onnx onnx = new Onnx();
+    private Quantization quantization = new Quantization();
+    private Coalescing coalescing = new Coalescing();
+    private Stream stream = new Stream();
+    private Queue queue = new Queue();
+
+    /**
+     * Which provider embeds a chunk. A collection route wins over a file type route, which wins
+     * over the default. File type routes must name the default provider, since a collection has
+     * to be embedded by one model to be searchable; use collection routes to switch models.
+     */
+    @Data
+    public static class Routing {
+
+        private String defaultProvider = "azure";
+        private Map<String, String> fileTypes = new HashMap<>();
+        private Map<String, String> collections = new HashMap<>();
+    }
+
+    /**
+     * Deterministic feature-hashing provider for tests and offline runs.
+     */
+    @Data
+    public static class Hashing {
+
+        private int dimension = 1536;
+    }
+
+    /**
+     * Local sentence-embedding model (BERT-style ONNX export plus its WordPiece vocab.txt).
+     */
+    @Data
+    public static class Onnx {
+
+        private boolean enabled = false;
+        private String modelPath;
+        private String vocabPath;
+        private boolean lowercase = true;
+        private int maxSequenceLength = 256;
+        private int batchSize = 32;
+        private int threads = 0;
+    }
+
+    /**
+     * Wire encoding of returned vectors. FLOAT16 halves the payload, INT8 quarters it; the
+     * Milvus service restores float32 before inserting.
+     */
+    @Data
+    public static class Quantization {
+
+        private QuantizationMode mode = QuantizationMode.NONE;
+    }
+
+    /**
+     * Share one upstream input between chunks with identical normalized text, within a request
+     * and across concurrent requests.
+     */
+    @Data
+    public static class Coalescing {
+
+        private boolean enabled = true;
+    }
+
+    /**
+     * /generate/stream: chunks per provider call and how many calls may be outstanding.
+     */
+    @Data
+    public static class Stream {
+
+        private int batchSize = 64;
+        private int maxInFlightBatches = 4;
+    }
+
+    /**
+     * Disk-spooled work queue behind /api/embedding/jobs. Batches are fsynced before a job is
+     * acknowledged unless fsync is turned off; finished jobs are kept for result-retention.
+     */
+    @Data
+    public static class Queue {
+
+        private boolean enabled = true;
+        private String directory = "data/embedding-queue";
+        private int workers = 2;
+        private int batchSize = 64;
+        private long segmentBytes = 64L * 1024 * 1024;
+        private boolean fsync = true;
+        private Duration resultRetention = Duration.ofHours(24);
+    }
+}
@@ -1,13 +1,28 @@
 package com.reposync.embedding.controller;
 
+import com.reposync.common.dto.EmbeddingJob;
 import com.reposync.common.dto.EmbeddingVector;
 import com.reposync.common.dto.TextChunk;
-import com.reposync.embedding.service.AzureOpenAIService;
+import com.reposync.common.util.QuantizationMode;
+import com.reposync.common.util.VectorQuantizer;
+import com.reposync.embedding.config.EmbeddingProperties;
+import com.reposync.embedding.model.PoisonChunk;
+import com.reposync.embedding.provider.EmbeddingProviderRouter;
+import com.reposync.embedding.queue.EmbeddingWorkQueue;
+import com.reposync.embedding.service.EmbeddingStreamService;
+import com.reposync.embedding.service.PoisonChunkRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 
+import java.io.InputStream;
 import java.util.List;
 
 @Slf4j
@@ -16,21 +31,114 @@ import java.util.List;
 @RequiredArgsConstructor
 public class EmbeddingController {
 
-    private final AzureOpenAIService azureOpenAIService;
+    private static final String CBOR_SEQ_VALUE = "application/cbor-seq";
+
+    private final EmbeddingProviderRouter providerRouter;
+    private final PoisonChunkRegistry poisonChunkRegistry;
+    private final EmbeddingProperties embeddingProperties;
+    private final EmbeddingStreamService embeddingStreamService;
+    private final EmbeddingWorkQueue embeddingWorkQueue;
+
+    // In async mode the servlet thread is released while upstream requests are in flight
+    @Value("${azure.openai.async.enabled:true}")
+    private boolean asyncEnabled;
 
     @PostMapping("/generate")
-    public ResponseEntity<EmbeddingVector> generateEmbedding(@RequestBody TextChunk chunk) {
+    public Mono<ResponseEntity<EmbeddingVector>> generateEmbedding(@RequestBody TextChunk chunk,
+                                                                   @RequestParam(required = false) String collection) {
         log.info("Generating embedding for chunk: {}", chunk.getChunkId());
-        EmbeddingVector vector = azureOpenAIService.generateEmbedding(chunk);
-        return ResponseEntity.ok(vector);
+        if (asyncEnabled) {
+            return providerRouter.embedAsync(chunk, collection).map(this::encode).map(ResponseEntity::ok);
+        }
+        EmbeddingVector vector = providerRouter.embed(chunk, collection);
+        return Mono.just(ResponseEntity.ok(encode(vector)));
     }
 
     @PostMapping("/generate/batch")
-    public ResponseEntity<List<EmbeddingVector>> generateEmbeddings(@RequestBody List<TextChunk> chunks) {
+    public Mono<ResponseEntity<List<EmbeddingVector>>> generateEmbeddings(@RequestBody List<TextChunk> chunks,
+                                                                          @RequestParam(required = false) String collection) {
         log.info("Generating embeddings for {} chunks", chunks.size());
-        List<EmbeddingVector> vectors = azureOpenAIService.generateEmbeddings(chunks);
+        if (asyncEnabled) {
+            return providerRouter.embedAsync(chunks, collection)
+                    .doOnNext(vectors -> log.info("Generated {} embeddings", vectors.size()))
+                    .map(this::encode)
+                    .map(ResponseEntity::ok);
+        }
+        List<EmbeddingVector> vectors = providerRouter.embed(chunks, collection);
         log.info("Generated {} embeddings", vectors.size());
-        return ResponseEntity.ok(vectors);
+        return Mono.just(ResponseEntity.ok(encode(vectors)));
+    }
+
+    /**
+     * Takes NDJSON chunks and streams vectors back as each batch completes: NDJSON by default,
+     * or a CBOR sequence (application/cbor-seq, vectors as raw float32) when asked for.
+     */
+    @PostMapping(value = "/generate/stream",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, CBOR_SEQ_VALUE})
+    public ResponseEntity<StreamingResponseBody> generateEmbeddingStream(InputStream body,
+                                                                         @RequestParam(required = false) String collection,
+                                                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean binary = accept != null && accept.contains(CBOR_SEQ_VALUE);
+        log.info("Streaming embeddings ({})", binary ? CBOR_SEQ_VALUE : MediaType.APPLICATION_NDJSON_VALUE);
+        StreamingResponseBody stream = output -> embeddingStreamService.stream(body, output, collection, binary);
+        return ResponseEntity.ok()
+                .contentType(binary ? MediaType.parseMediaType(CBOR_SEQ_VALUE) : MediaType.APPLICATION_NDJSON)
+                .body(stream);
+    }
+
+    /**
+     * Spools the chunks to the work queue and returns at once; poll the job and fetch its
+     * vectors when it has finished.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<EmbeddingJob> submitJob(@RequestBody List<TextChunk> chunks,
+                                                  @RequestParam(required = false) String collection) {
+        if (!embeddingWorkQueue.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(embeddingWorkQueue.submit(chunks, collection));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<EmbeddingJob> getJob(@PathVariable String jobId) {
+        return embeddingWorkQueue.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Vectors of a job; 409 while it is still running.
+     */
+    @GetMapping("/jobs/{jobId}/vectors")
+    public ResponseEntity<List<EmbeddingVector>> getJobVectors(@PathVariable String jobId) {
+        EmbeddingJob job = embeddingWorkQueue.getJob(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!job.isFinished()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(encode(embeddingWorkQueue.getVectors(jobId)));
+    }
+
+    private EmbeddingVector encode(EmbeddingVector vector) {
+        return VectorQuantizer.encode(vector, quantizationMode());
+    }
+
+    private List<EmbeddingVector> encode(List<EmbeddingVector> vectors) {
+        QuantizationMode mode = quantizationMode();
+        vectors.forEach(vector -> VectorQuantizer.encode(vector, mode));
+        return vectors;
+    }
+
+    private QuantizationMode quantizationMode() {
+        return embeddingProperties.getQuantization().getMode();
+    }
+
+    @GetMapping("/poison")
+    public ResponseEntity<List<PoisonChunk>> poisonChunks() {
+        return ResponseEntity.ok(poisonChunkRegistry.getRecent());
     }
 
     @GetMapping("/health")
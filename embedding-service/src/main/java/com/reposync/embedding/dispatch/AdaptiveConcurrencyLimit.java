@@ -0,0 +1,69 @@
+package com.reposync.embedding.dispatch;
+
+/**
+ * Counting gate whose permit count can be grown and shrunk at runtime (additive increase,
+ * multiplicative decrease) based on the rate-limit feedback we get from upstream.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private int limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid concurrency bounds: min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * Takes a permit if one is free, without waiting.
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    public synchronized void increase() {
+        if (limit < maxLimit) {
+            limit++;
+            notifyAll();
+        }
+    }
+
+    public synchronized void decrease() {
+        limit = Math.max(minLimit, limit - 1);
+    }
+
+    public synchronized void halve() {
+        limit = Math.max(minLimit, limit / 2);
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
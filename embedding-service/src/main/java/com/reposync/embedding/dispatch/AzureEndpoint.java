@@ -0,0 +1,56 @@
+package com.reposync.embedding.dispatch;
+
+import com.azure.ai.openai.OpenAIAsyncClient;
+import com.azure.ai.openai.OpenAIClient;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One Azure OpenAI deployment together with its own quota, breaker and latency history.
+ */
+@Getter
+public class AzureEndpoint {
+
+    private static final int LATENCY_WINDOW_SIZE = 256;
+
+    private final String name;
+    private final String deployment;
+    private final int weight;
+    private final OpenAIClient client;
+    private final OpenAIAsyncClient asyncClient;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW_SIZE);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public AzureEndpoint(String name, String deployment, int weight, OpenAIClient client,
+                         OpenAIAsyncClient asyncClient, TokenBucketRateLimiter rateLimiter,
+                         CircuitBreaker circuitBreaker) {
+        this.name = name;
+        this.deployment = deployment;
+        this.weight = Math.max(1, weight);
+        this.client = client;
+        this.asyncClient = asyncClient;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public boolean isAvailable() {
+        return circuitBreaker.getState() != CircuitBreaker.State.OPEN
+                && circuitBreaker.getState() != CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    /**
+     * Load relative to the endpoint's share of the total weight.
+     */
+    double load() {
+        return (double) inFlight.get() / weight;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
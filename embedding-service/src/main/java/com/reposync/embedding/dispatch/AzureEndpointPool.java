@@ -0,0 +1,96 @@
+package com.reposync.embedding.dispatch;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Routes each embeddings request to the deployment that can send it soonest: the one with the
+ * shortest rate-limit wait, then the lowest weighted in-flight count. Endpoints whose circuit
+ * breaker is open are skipped. Because every endpoint has its own token bucket, the pool as a
+ * whole admits up to the sum of all quotas.
+ */
+@Slf4j
+public class AzureEndpointPool {
+
+    private final List<AzureEndpoint> endpoints;
+
+    public AzureEndpointPool(List<AzureEndpoint> endpoints, MeterRegistry meterRegistry) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalStateException("No Azure OpenAI endpoints configured");
+        }
+        this.endpoints = List.copyOf(endpoints);
+
+        for (AzureEndpoint endpoint : this.endpoints) {
+            Gauge.builder("embedding.endpoint.in.flight", endpoint.getInFlight(), Number::doubleValue)
+                    .description("Embedding requests in flight per Azure OpenAI endpoint")
+                    .tag("endpoint", endpoint.getName())
+                    .register(meterRegistry);
+            Gauge.builder("embedding.endpoint.available", endpoint, e -> e.isAvailable() ? 1 : 0)
+                    .description("1 while the endpoint's circuit breaker lets requests through")
+                    .tag("endpoint", endpoint.getName())
+                    .register(meterRegistry);
+            endpoint.getCircuitBreaker().getEventPublisher().onStateTransition(event ->
+                    log.warn("Azure OpenAI endpoint '{}' circuit breaker: {}",
+                            endpoint.getName(), event.getStateTransition()));
+        }
+        log.info("Azure OpenAI endpoints: {}", this.endpoints.stream()
+                .map(e -> e.getName() + "(" + e.getDeployment() + ", weight " + e.getWeight() + ")")
+                .toList());
+    }
+
+    public List<AzureEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * Picks an endpoint for a request of the given size and takes a circuit breaker permit and
+     * an in-flight slot on it; the caller must hand both back through {@link #release}.
+     */
+    public AzureEndpoint acquire(int tokens) {
+        return acquire(tokens, null, false)
+                .orElseThrow(() -> new IllegalStateException("All Azure OpenAI endpoints are unavailable (circuit open)"));
+    }
+
+    /**
+     * Picks a second endpoint for a hedged request: any available endpoint other than the
+     * primary that can send right away.
+     */
+    public Optional<AzureEndpoint> acquireHedge(int tokens, AzureEndpoint primary) {
+        return acquire(tokens, primary, true);
+    }
+
+    public void release(AzureEndpoint endpoint) {
+        endpoint.getInFlight().decrementAndGet();
+    }
+
+    private Optional<AzureEndpoint> acquire(int tokens, AzureEndpoint exclude, boolean immediateOnly) {
+        List<Candidate> candidates = endpoints.stream()
+                .filter(e -> e != exclude && e.isAvailable())
+                .map(e -> new Candidate(e, e.getRateLimiter().estimateWait(tokens), e.load()))
+                .filter(c -> !immediateOnly || c.waitNanos() == 0)
+                .sorted(Comparator.comparingLong(Candidate::waitNanos).thenComparingDouble(Candidate::load))
+                .toList();
+
+        for (Candidate candidate : candidates) {
+            AzureEndpoint endpoint = candidate.endpoint();
+            // Half-open breakers only let a few trial calls through
+            if (endpoint.getCircuitBreaker().tryAcquirePermission()) {
+                endpoint.getInFlight().incrementAndGet();
+                return Optional.of(endpoint);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private record Candidate(AzureEndpoint endpoint, long waitNanos, double load) {
+    }
+}
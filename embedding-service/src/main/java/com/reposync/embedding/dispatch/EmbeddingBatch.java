@@ -0,0 +1,16 @@
+package com.reposync.embedding.dispatch;
+
+import com.reposync.common.dto.TextChunk;
+
+import java.util.List;
+
+/**
+ * One upstream embeddings request: the chunks to embed, their positions in the original
+ * request (so results can be put back in order) and their estimated token count.
+ */
+public record EmbeddingBatch(List<TextChunk> chunks, List<Integer> positions, int tokenCount) {
+
+    public int size() {
+        return chunks.size();
+    }
+}
@@ -0,0 +1,87 @@
+package com.reposync.embedding.dispatch;
+
+import com.reposync.common.dto.TextChunk;
+import com.reposync.common.util.TokenCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Packs chunks into embedding requests by token count rather than by a fixed number of inputs.
+ *
+ * Chunks are sorted by length first so each batch holds inputs of similar size, then packed
+ * greedily up to the per-request token budget and input count. Inputs longer than the model
+ * accepts are truncated instead of failing the whole batch.
+ */
+@Slf4j
+@Component
+public class EmbeddingBatchPlanner {
+
+    @Value("${azure.openai.batch-size:16}")
+    private int maxInputsPerBatch;
+
+    @Value("${azure.openai.batch-max-tokens:32000}")
+    private int maxTokensPerBatch;
+
+    @Value("${azure.openai.max-input-tokens:8191}")
+    private int maxTokensPerInput;
+
+    public List<EmbeddingBatch> plan(List<TextChunk> chunks) {
+        List<SizedChunk> sized = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            sized.add(measure(i, chunks.get(i)));
+        }
+        sized.sort(Comparator.comparingInt(SizedChunk::tokens));
+
+        List<EmbeddingBatch> batches = new ArrayList<>();
+        List<TextChunk> current = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        int currentTokens = 0;
+
+        for (SizedChunk chunk : sized) {
+            boolean full = current.size() >= maxInputsPerBatch
+                    || currentTokens + chunk.tokens() > maxTokensPerBatch;
+            if (!current.isEmpty() && full) {
+                batches.add(new EmbeddingBatch(current, positions, currentTokens));
+                current = new ArrayList<>();
+                positions = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(chunk.chunk());
+            positions.add(chunk.position());
+            currentTokens += chunk.tokens();
+        }
+        if (!current.isEmpty()) {
+            batches.add(new EmbeddingBatch(current, positions, currentTokens));
+        }
+
+        log.debug("Planned {} batches for {} chunks (max {} inputs / {} tokens per batch)",
+                batches.size(), chunks.size(), maxInputsPerBatch, maxTokensPerBatch);
+        return batches;
+    }
+
+    private SizedChunk measure(int position, TextChunk chunk) {
+        int tokens = TokenCounter.countTokens(chunk.getContent());
+        if (tokens <= maxTokensPerInput) {
+            return new SizedChunk(position, chunk, tokens);
+        }
+
+        log.warn("Chunk {} has {} tokens, truncating to the model limit of {}",
+                chunk.getChunkId(), tokens, maxTokensPerInput);
+        TextChunk truncated = TextChunk.builder()
+                .chunkId(chunk.getChunkId())
+                .content(TokenCounter.truncate(chunk.getContent(), maxTokensPerInput))
+                .chunkIndex(chunk.getChunkIndex())
+                .totalChunks(chunk.getTotalChunks())
+                .metadata(chunk.getMetadata())
+                .build();
+        return new SizedChunk(position, truncated, maxTokensPerInput);
+    }
+
+    private record SizedChunk(int position, TextChunk chunk, int tokens) {
+    }
+}
@@ -0,0 +1,376 @@
+package com.reposync.embedding.dispatch;
+
+import com.azure.ai.openai.models.Embeddings;
+import com.azure.ai.openai.models.EmbeddingsOptions;
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.rest.RequestOptions;
+import com.azure.core.http.rest.Response;
+import com.reposync.common.util.TokenCounter;
+import com.reposync.embedding.config.AzureOpenAIProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Keeps up to N embedding batches in flight against Azure OpenAI.
+ *
+ * Every upstream call goes to the deployment picked by {@link AzureEndpointPool} and is
+ * admitted by that deployment's requests-per-minute / tokens-per-minute token bucket.
+ * N itself is adapted from the {@code x-ratelimit-remaining-*} and {@code retry-after} headers:
+ * it grows while the deployment reports spare quota and is halved on throttling.
+ *
+ * In async mode the same token buckets and the same adaptive limit pace requests on the async
+ * clients; waits are scheduled with timers instead of sleeping, so hundreds of requests can be
+ * queued on a handful of event-loop threads. With hedging enabled, a request still outstanding after its
+ * endpoint's p95 latency is also sent to another endpoint and the first response wins.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmbeddingDispatcher {
+
+    private static final HttpHeaderName REMAINING_REQUESTS = HttpHeaderName.fromString("x-ratelimit-remaining-requests");
+    private static final HttpHeaderName REMAINING_TOKENS = HttpHeaderName.fromString("x-ratelimit-remaining-tokens");
+    private static final HttpHeaderName RETRY_AFTER_MS = HttpHeaderName.fromString("retry-after-ms");
+    private static final long DEFAULT_RETRY_AFTER_MS = 1000;
+    private static final Duration PERMIT_POLL_INTERVAL = Duration.ofMillis(20);
+
+    private final AzureEndpointPool endpointPool;
+    private final AzureOpenAIProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${azure.openai.dispatcher.initial-concurrency:4}")
+    private int initialConcurrency;
+
+    @Value("${azure.openai.dispatcher.max-concurrency:16}")
+    private int maxConcurrency;
+
+    @Value("${azure.openai.async.max-concurrency:256}")
+    private int asyncMaxConcurrency;
+
+    // Below this fraction of remaining quota we stop growing and start shedding concurrency
+    @Value("${azure.openai.dispatcher.low-headroom-threshold:0.1}")
+    private double lowHeadroomThreshold;
+
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+    private ExecutorService executor;
+    private Counter hedgedCounter;
+    private Counter hedgeWinCounter;
+
+    @PostConstruct
+    void init() {
+        concurrencyLimit = new AdaptiveConcurrencyLimit(initialConcurrency, 1, maxConcurrency);
+        executor = Executors.newFixedThreadPool(maxConcurrency, namedThreadFactory());
+
+        Gauge.builder("embedding.dispatcher.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current number of embedding batches allowed in flight")
+                .register(meterRegistry);
+        Gauge.builder("embedding.dispatcher.in.flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Embedding batches currently in flight")
+                .register(meterRegistry);
+        hedgedCounter = Counter.builder("embedding.hedge.requests")
+                .description("Embedding requests that were also sent to a second endpoint")
+                .register(meterRegistry);
+        hedgeWinCounter = Counter.builder("embedding.hedge.wins")
+                .description("Hedged embedding requests answered first by the second endpoint")
+                .register(meterRegistry);
+
+        log.info("Embedding dispatcher ready: {} endpoint(s), concurrency={} (max {}), hedging {}",
+                endpointPool.size(), concurrencyLimit.getLimit(), maxConcurrency,
+                isHedging() ? "enabled" : "disabled");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the task for every batch with at most N batches in flight and returns the results in
+     * the order of the input batches.
+     */
+    public <T, R> List<R> dispatch(List<T> batches, Function<T, R> task) {
+        log.info("Dispatching {} batches (concurrency limit {}, in flight {})",
+                batches.size(), concurrencyLimit.getLimit(), concurrencyLimit.getInFlight());
+
+        List<Future<R>> futures = new ArrayList<>(batches.size());
+        for (T batch : batches) {
+            futures.add(executor.submit(() -> runGated(batch, task)));
+        }
+
+        List<R> results = new ArrayList<>(batches.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for embedding batches", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Embedding batch failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Sends one rate-limited embeddings request and feeds the response headers back into the
+     * token bucket and concurrency limit.
+     */
+    public Embeddings embed(List<String> texts) {
+        return embed(texts, texts.stream().mapToInt(TokenCounter::countTokens).sum());
+    }
+
+    /**
+     * {@link #embed(List)} for a single request outside {@link #dispatch}: it first waits for a
+     * permit of the same adaptive concurrency limit, so it competes fairly with batch traffic.
+     */
+    public Embeddings embedGated(List<String> texts) {
+        try {
+            return runGated(texts, this::embed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a concurrency permit", e);
+        }
+    }
+
+    /**
+     * Same as {@link #embed(List)} for callers that already know the token count of the texts.
+     */
+    public Embeddings embed(List<String> texts, int estimatedTokens) {
+        if (isHedging()) {
+            // Hedging races two requests, which the async clients do without extra threads.
+            // Callers of the blocking path already hold a permit (see dispatch)
+            return hedgedAsync(texts, estimatedTokens).block();
+        }
+
+        AzureEndpoint endpoint = endpointPool.acquire(estimatedTokens);
+        long start = 0;
+        try {
+            endpoint.getRateLimiter().acquire(estimatedTokens);
+            start = System.nanoTime();
+            Response<Embeddings> response = endpoint.getClient().getEmbeddingsWithResponse(
+                    endpoint.getDeployment(), new EmbeddingsOptions(texts), new RequestOptions());
+            onResponse(endpoint, response.getHeaders(), System.nanoTime() - start);
+            return response.getValue();
+        } catch (InterruptedException e) {
+            endpoint.getCircuitBreaker().releasePermission();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for rate limiter", e);
+        } catch (RuntimeException e) {
+            onFailure(endpoint, e, System.nanoTime() - start);
+            throw e;
+        } finally {
+            endpointPool.release(endpoint);
+        }
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #dispatch}: subscribes to at most
+     * azure.openai.async.max-concurrency batches at once and emits results in input order. How
+     * many of them are actually sent at once is up to the adaptive limit (see embedAsync).
+     */
+    public <T, R> Mono<List<R>> dispatchAsync(List<T> batches, Function<T, Mono<R>> task) {
+        log.info("Dispatching {} batches asynchronously (max {} in flight)", batches.size(), asyncMaxConcurrency);
+        return Flux.fromIterable(batches)
+                .flatMapSequential(task, asyncMaxConcurrency)
+                .collectList();
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #embed(List, int)}, admitted by the same adaptive
+     * concurrency limit as {@link #dispatch}. The permit, the endpoint and its rate-limit wait
+     * are taken on subscription, so a retry re-enters routing like a fresh request.
+     */
+    public Mono<Embeddings> embedAsync(List<String> texts, int estimatedTokens) {
+        return gated(hedgedAsync(texts, estimatedTokens));
+    }
+
+    public Mono<Embeddings> embedAsync(List<String> texts) {
+        return embedAsync(texts, texts.stream().mapToInt(TokenCounter::countTokens).sum());
+    }
+
+    private Mono<Embeddings> hedgedAsync(List<String> texts, int estimatedTokens) {
+        return Mono.defer(() -> {
+            AzureEndpoint primary = endpointPool.acquire(estimatedTokens);
+            Mono<Embeddings> call = callAsync(primary, texts, estimatedTokens);
+            long hedgeDelay = isHedging() ? hedgeDelayNanos(primary) : -1;
+            if (hedgeDelay < 0) {
+                return call;
+            }
+
+            // cache() keeps the primary running when the timeout switches to the race below
+            Mono<Embeddings> primaryCall = call.cache();
+            Mono<Embeddings> hedge = Mono.defer(() -> endpointPool.acquireHedge(estimatedTokens, primary)
+                    .map(second -> {
+                        hedgedCounter.increment();
+                        log.debug("Hedging request to '{}' after {}ms on '{}'",
+                                second.getName(), TimeUnit.NANOSECONDS.toMillis(hedgeDelay), primary.getName());
+                        return callAsync(second, texts, estimatedTokens).doOnNext(result -> hedgeWinCounter.increment());
+                    })
+                    // A failed or impossible hedge leaves the outcome to the primary request
+                    .orElse(Mono.never()))
+                    .onErrorResume(e -> Mono.never());
+            return primaryCall.timeout(Duration.ofNanos(hedgeDelay),
+                    Mono.defer(() -> Mono.firstWithSignal(primaryCall, hedge)));
+        });
+    }
+
+    private <T, R> R runGated(T batch, Function<T, R> task) throws InterruptedException {
+        concurrencyLimit.acquire();
+        try {
+            return task.apply(batch);
+        } finally {
+            concurrencyLimit.release();
+        }
+    }
+
+    /**
+     * Async counterpart of runGated: waiting for a permit polls on a timer instead of blocking a
+     * thread, and the permit is released however the call ends, cancellation included.
+     */
+    private <R> Mono<R> gated(Mono<R> call) {
+        Mono<Boolean> permit = Mono.fromCallable(concurrencyLimit::tryAcquire)
+                .filter(Boolean::booleanValue)
+                .repeatWhenEmpty(attempts -> attempts.delayElements(PERMIT_POLL_INTERVAL));
+        Mono<Void> release = Mono.fromRunnable(concurrencyLimit::release);
+        return Mono.usingWhen(permit, granted -> call, granted -> release, (granted, e) -> release, granted -> release);
+    }
+
+    /**
+     * Sends one request to the given endpoint, which already holds a breaker permit and an
+     * in-flight slot for it; both are released however the call ends.
+     */
+    private Mono<Embeddings> callAsync(AzureEndpoint endpoint, List<String> texts, int estimatedTokens) {
+        long waitNanos = endpoint.getRateLimiter().reserve(estimatedTokens);
+        long[] start = new long[1];
+        Mono<Response<Embeddings>> call = Mono.defer(() -> {
+            start[0] = System.nanoTime();
+            return endpoint.getAsyncClient().getEmbeddingsWithResponse(
+                    endpoint.getDeployment(), new EmbeddingsOptions(texts), new RequestOptions());
+        });
+        return (waitNanos > 0 ? Mono.delay(Duration.ofNanos(waitNanos)).then(call) : call)
+                .doOnNext(response -> onResponse(endpoint, response.getHeaders(), System.nanoTime() - start[0]))
+                .map(Response::getValue)
+                .doOnError(e -> onFailure(endpoint, e, start[0] > 0 ? System.nanoTime() - start[0] : 0))
+                .doOnCancel(() -> endpoint.getCircuitBreaker().releasePermission())
+                .doFinally(signal -> endpointPool.release(endpoint));
+    }
+
+    private boolean isHedging() {
+        return properties.getHedging().isEnabled() && endpointPool.size() > 1;
+    }
+
+    private long hedgeDelayNanos(AzureEndpoint endpoint) {
+        AzureOpenAIProperties.Hedging hedging = properties.getHedging();
+        long percentile = endpoint.getLatencies().percentile(hedging.getPercentile(), hedging.getMinSamples());
+        if (percentile < 0) {
+            return -1;
+        }
+        return Math.max(percentile, hedging.getMinDelay().toNanos());
+    }
+
+    private void onResponse(AzureEndpoint endpoint, HttpHeaders headers, long latencyNanos) {
+        endpoint.getCircuitBreaker().onSuccess(latencyNanos, TimeUnit.NANOSECONDS);
+        endpoint.getLatencies().record(latencyNanos);
+        requestTimer(endpoint, "success").record(latencyNanos, TimeUnit.NANOSECONDS);
+
+        TokenBucketRateLimiter rateLimiter = endpoint.getRateLimiter();
+        Long remainingRequests = parseLong(headers.getValue(REMAINING_REQUESTS));
+        Long remainingTokens = parseLong(headers.getValue(REMAINING_TOKENS));
+        rateLimiter.updateRemaining(remainingRequests, remainingTokens);
+
+        double headroom = Math.min(rateLimiter.getRequestHeadroom(), rateLimiter.getTokenHeadroom());
+        if (headroom < lowHeadroomThreshold) {
+            concurrencyLimit.decrease();
+            log.debug("Low rate-limit headroom on '{}' ({}), concurrency reduced to {}",
+                    endpoint.getName(), headroom, concurrencyLimit.getLimit());
+        } else {
+            concurrencyLimit.increase();
+        }
+    }
+
+    private void onFailure(AzureEndpoint endpoint, Throwable e, long latencyNanos) {
+        // The breaker only counts failures that say the endpoint is unhealthy
+        endpoint.getCircuitBreaker().onError(latencyNanos, TimeUnit.NANOSECONDS, e);
+
+        if (!(e instanceof HttpResponseException httpError) || httpError.getResponse() == null
+                || httpError.getResponse().getStatusCode() != 429) {
+            requestTimer(endpoint, "error").record(latencyNanos, TimeUnit.NANOSECONDS);
+            return;
+        }
+        requestTimer(endpoint, "throttled").record(latencyNanos, TimeUnit.NANOSECONDS);
+        long retryAfterMs = retryAfterMillis(httpError.getResponse().getHeaders());
+        endpoint.getRateLimiter().pauseFor(retryAfterMs, TimeUnit.MILLISECONDS);
+        concurrencyLimit.halve();
+        log.warn("Azure OpenAI endpoint '{}' throttled the request, pausing it {}ms and reducing concurrency to {}",
+                endpoint.getName(), retryAfterMs, concurrencyLimit.getLimit());
+    }
+
+    private Timer requestTimer(AzureEndpoint endpoint, String outcome) {
+        return Timer.builder("embedding.endpoint.requests")
+                .description("Embedding requests per Azure OpenAI endpoint")
+                .tag("endpoint", endpoint.getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private long retryAfterMillis(HttpHeaders headers) {
+        Long retryAfterMs = parseLong(headers.getValue(RETRY_AFTER_MS));
+        if (retryAfterMs != null) {
+            return retryAfterMs;
+        }
+        Long retryAfterSeconds = parseLong(headers.getValue(HttpHeaderName.RETRY_AFTER));
+        if (retryAfterSeconds != null) {
+            return TimeUnit.SECONDS.toMillis(retryAfterSeconds);
+        }
+        return DEFAULT_RETRY_AFTER_MS;
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "embedding-dispatch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
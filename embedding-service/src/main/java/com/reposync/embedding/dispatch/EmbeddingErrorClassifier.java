@@ -0,0 +1,73 @@
+package com.reposync.embedding.dispatch;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.exception.ServiceResponseException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decides how a failed embeddings call should be handled.
+ */
+public final class EmbeddingErrorClassifier {
+
+    public enum FailureType {
+        /** Throttling, timeouts and server errors: the same request may succeed later. */
+        TRANSIENT,
+        /** The request itself was rejected, most likely because of one of its inputs. */
+        INPUT,
+        /** Authentication, configuration, an open circuit or any other failure no retry or split will fix. */
+        FATAL
+    }
+
+    private EmbeddingErrorClassifier() {
+    }
+
+    /**
+     * Only HTTP statuses and known I/O and transport failures are TRANSIENT. Anything else,
+     * such as the IllegalStateException of an open circuit, fails at once instead of being
+     * retried against the same condition.
+     */
+    public static FailureType classify(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException httpError && httpError.getResponse() != null) {
+                return classifyStatus(httpError.getResponse().getStatusCode());
+            }
+            if (cause instanceof IOException || cause instanceof UncheckedIOException
+                    || cause instanceof TimeoutException || cause instanceof ServiceResponseException
+                    || cause instanceof io.netty.handler.timeout.TimeoutException) {
+                return FailureType.TRANSIENT;
+            }
+            if (cause instanceof IllegalArgumentException) {
+                // About the request, so bisection can isolate the input
+                return FailureType.INPUT;
+            }
+        }
+        return FailureType.FATAL;
+    }
+
+    /**
+     * Whether the failure says something about the health of the endpoint (server errors,
+     * timeouts, broken connections) rather than about quota or the request itself.
+     */
+    public static boolean isEndpointFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException httpError && httpError.getResponse() != null) {
+                int status = httpError.getResponse().getStatusCode();
+                return status == 408 || status >= 500;
+            }
+        }
+        return classify(error) == FailureType.TRANSIENT;
+    }
+
+    static FailureType classifyStatus(int status) {
+        if (status == 408 || status == 429 || status >= 500) {
+            return FailureType.TRANSIENT;
+        }
+        if (status == 400 || status == 413 || status == 422) {
+            return FailureType.INPUT;
+        }
+        return FailureType.FATAL;
+    }
+}
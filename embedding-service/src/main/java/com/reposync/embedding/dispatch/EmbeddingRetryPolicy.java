@@ -0,0 +1,74 @@
+package com.reposync.embedding.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries transient embedding failures with exponential backoff and full jitter.
+ * Input and fatal failures are rethrown immediately for the caller to handle.
+ */
+@Slf4j
+@Component
+public class EmbeddingRetryPolicy {
+
+    @Value("${azure.openai.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${azure.openai.retry.initial-backoff-ms:500}")
+    private long initialBackoffMs;
+
+    @Value("${azure.openai.retry.max-backoff-ms:10000}")
+    private long maxBackoffMs;
+
+    public <T> T execute(Supplier<T> call) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                EmbeddingErrorClassifier.FailureType type = EmbeddingErrorClassifier.classify(e);
+                if (type != EmbeddingErrorClassifier.FailureType.TRANSIENT || attempt >= maxAttempts) {
+                    throw e;
+                }
+                long backoff = backoffMillis(attempt);
+                log.warn("Transient embedding failure (attempt {}/{}), retrying in {}ms: {}",
+                        attempt, maxAttempts, backoff, e.getMessage());
+                sleep(backoff);
+            }
+        }
+    }
+
+    /**
+     * Reactive variant: resubscribes to the call on transient failures using timer-based backoff.
+     */
+    public <T> Mono<T> executeAsync(Supplier<Mono<T>> call) {
+        return Mono.defer(call)
+                .retryWhen(Retry.backoff(maxAttempts - 1, Duration.ofMillis(initialBackoffMs))
+                        .maxBackoff(Duration.ofMillis(maxBackoffMs))
+                        .jitter(0.5)
+                        .filter(e -> EmbeddingErrorClassifier.classify(e) == EmbeddingErrorClassifier.FailureType.TRANSIENT)
+                        .doBeforeRetry(signal -> log.warn("Transient embedding failure (attempt {}/{}), retrying: {}",
+                                signal.totalRetries() + 1, maxAttempts, signal.failure().getMessage()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.reposync.embedding.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of the most recent request latencies, used to derive a hedging delay.
+ */
+public class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * Returns the latency at the given quantile (0..1), or -1 while fewer than minSamples
+     * requests have completed.
+     */
+    public synchronized long percentile(double quantile, int minSamples) {
+        if (count == 0 || count < minSamples) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+}
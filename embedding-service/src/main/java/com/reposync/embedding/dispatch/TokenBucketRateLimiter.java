@@ -0,0 +1,127 @@
+package com.reposync.embedding.dispatch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dual token bucket that enforces both a requests-per-minute and a tokens-per-minute quota,
+ * mirroring how Azure OpenAI meters embedding deployments.
+ *
+ * Callers reserve capacity up front and are told how long to wait before sending. Reservations
+ * may drive a bucket negative, so concurrent callers queue up behind each other instead of
+ * all waking at the same instant once the bucket refills.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final double requestCapacity;
+    private final double tokenCapacity;
+    private final double requestsPerNano;
+    private final double tokensPerNano;
+
+    private double availableRequests;
+    private double availableTokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+
+    public TokenBucketRateLimiter(int requestsPerMinute, int tokensPerMinute) {
+        if (requestsPerMinute <= 0 || tokensPerMinute <= 0) {
+            throw new IllegalArgumentException("Rate limits must be positive: rpm=" + requestsPerMinute
+                    + ", tpm=" + tokensPerMinute);
+        }
+        this.requestCapacity = requestsPerMinute;
+        this.tokenCapacity = tokensPerMinute;
+        this.requestsPerNano = requestsPerMinute / NANOS_PER_MINUTE;
+        this.tokensPerNano = tokensPerMinute / NANOS_PER_MINUTE;
+        this.availableRequests = requestCapacity;
+        this.availableTokens = tokenCapacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Blocks until one request carrying the given number of tokens may be sent.
+     */
+    public void acquire(int tokens) throws InterruptedException {
+        long waitNanos = reserve(tokens);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Reserves capacity for one request and returns how many nanoseconds the caller must wait
+     * before sending it.
+     */
+    public synchronized long reserve(int tokens) {
+        long now = System.nanoTime();
+        refill(now);
+
+        // A single request larger than the whole bucket could otherwise never be admitted
+        double cost = Math.min(Math.max(tokens, 1), tokenCapacity);
+        availableRequests -= 1;
+        availableTokens -= cost;
+
+        long requestWait = availableRequests >= 0 ? 0 : (long) Math.ceil(-availableRequests / requestsPerNano);
+        long tokenWait = availableTokens >= 0 ? 0 : (long) Math.ceil(-availableTokens / tokensPerNano);
+        long pauseWait = Math.max(0, pausedUntilNanos - now);
+        return Math.max(pauseWait, Math.max(requestWait, tokenWait));
+    }
+
+    /**
+     * How long a request of the given size would have to wait if it were reserved now, without
+     * reserving anything. Used to compare endpoints before picking one.
+     */
+    public synchronized long estimateWait(int tokens) {
+        long now = System.nanoTime();
+        refill(now);
+        double cost = Math.min(Math.max(tokens, 1), tokenCapacity);
+        double requestsAfter = availableRequests - 1;
+        double tokensAfter = availableTokens - cost;
+        long requestWait = requestsAfter >= 0 ? 0 : (long) Math.ceil(-requestsAfter / requestsPerNano);
+        long tokenWait = tokensAfter >= 0 ? 0 : (long) Math.ceil(-tokensAfter / tokensPerNano);
+        long pauseWait = Math.max(0, pausedUntilNanos - now);
+        return Math.max(pauseWait, Math.max(requestWait, tokenWait));
+    }
+
+    /**
+     * Aligns the local buckets with the quota the server reports as remaining. The server view
+     * wins whenever it is lower, which happens when other clients share the same deployment.
+     */
+    public synchronized void updateRemaining(Long remainingRequests, Long remainingTokens) {
+        refill(System.nanoTime());
+        if (remainingRequests != null) {
+            availableRequests = Math.min(availableRequests, remainingRequests);
+        }
+        if (remainingTokens != null) {
+            availableTokens = Math.min(availableTokens, remainingTokens);
+        }
+    }
+
+    /**
+     * Stops admitting requests for the given duration, e.g. after a 429 with a retry-after header.
+     */
+    public synchronized void pauseFor(long duration, TimeUnit unit) {
+        long until = System.nanoTime() + unit.toNanos(duration);
+        pausedUntilNanos = Math.max(pausedUntilNanos, until);
+    }
+
+    public synchronized double getRequestHeadroom() {
+        refill(System.nanoTime());
+        return Math.max(0, availableRequests) / requestCapacity;
+    }
+
+    public synchronized double getTokenHeadroom() {
+        refill(System.nanoTime());
+        return Math.max(0, availableTokens) / tokenCapacity;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed <= 0) {
+            return;
+        }
+        availableRequests = Math.min(requestCapacity, availableRequests + elapsed * requestsPerNano);
+        availableTokens = Math.min(tokenCapacity, availableTokens + elapsed * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,24 @@
+package com.reposync.embedding.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A chunk the embedding model rejected, isolated by batch bisection.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PoisonChunk {
+    private String chunkId;
+    private Map<String, String> metadata;
+    private Integer contentLength;
+    private String reason;
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,48 @@
+package com.reposync.embedding.provider;
+
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.TextChunk;
+import com.reposync.embedding.service.AzureOpenAIService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Azure OpenAI embeddings, with rate limiting, token-budget batching and bisection handled by
+ * {@link AzureOpenAIService}.
+ */
+@Component
+@RequiredArgsConstructor
+public class AzureEmbeddingProvider implements EmbeddingProvider {
+
+    public static final String NAME = "azure";
+
+    private final AzureOpenAIService azureOpenAIService;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<EmbeddingVector> embed(List<TextChunk> chunks) {
+        return azureOpenAIService.generateEmbeddings(chunks);
+    }
+
+    @Override
+    public EmbeddingVector embed(TextChunk chunk) {
+        return azureOpenAIService.generateEmbedding(chunk);
+    }
+
+    @Override
+    public Mono<List<EmbeddingVector>> embedAsync(List<TextChunk> chunks) {
+        return azureOpenAIService.generateEmbeddingsAsync(chunks);
+    }
+
+    @Override
+    public Mono<EmbeddingVector> embedAsync(TextChunk chunk) {
+        return azureOpenAIService.generateEmbeddingAsync(chunk);
+    }
+}
@@ -0,0 +1,222 @@
+package com.reposync.embedding.provider;
+
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.TextChunk;
+import com.reposync.embedding.config.EmbeddingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Singleflight for embedding calls. Chunks whose normalized text is identical share one
+ * upstream input, both within a request and across requests that are in flight at the same
+ * time: the first request to claim a text embeds it, later ones wait for its result.
+ *
+ * Nothing is kept once a call completes, so this is deduplication rather than caching.
+ */
+@Slf4j
+@Component
+public class EmbeddingCoalescer {
+
+    private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+    private final boolean enabled;
+
+    private final Counter inputCounter;
+    private final Counter upstreamCounter;
+    private final Counter batchDuplicateCounter;
+    private final Counter inFlightDuplicateCounter;
+
+    public EmbeddingCoalescer(EmbeddingProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.getCoalescing().isEnabled();
+        this.inputCounter = Counter.builder("embedding.coalescing.inputs")
+                .description("Chunks submitted for embedding")
+                .register(meterRegistry);
+        this.upstreamCounter = Counter.builder("embedding.coalescing.upstream")
+                .description("Texts actually sent to an embedding provider")
+                .register(meterRegistry);
+        this.batchDuplicateCounter = Counter.builder("embedding.coalescing.deduplicated")
+                .description("Chunks served by another chunk's embedding")
+                .tag("scope", "batch")
+                .register(meterRegistry);
+        this.inFlightDuplicateCounter = Counter.builder("embedding.coalescing.deduplicated")
+                .description("Chunks served by another chunk's embedding")
+                .tag("scope", "in_flight")
+                .register(meterRegistry);
+        Gauge.builder("embedding.coalescing.dedup.ratio", this, EmbeddingCoalescer::dedupRatio)
+                .description("Share of submitted chunks that did not need their own upstream input")
+                .register(meterRegistry);
+        Gauge.builder("embedding.coalescing.in.flight", inFlight, Map::size)
+                .description("Distinct texts currently being embedded")
+                .register(meterRegistry);
+    }
+
+    public List<EmbeddingVector> embed(EmbeddingProvider provider, List<TextChunk> chunks) {
+        return coalesce(provider, chunks, leaders -> Mono.fromCallable(() -> provider.embed(leaders))).block();
+    }
+
+    public Mono<List<EmbeddingVector>> embedAsync(EmbeddingProvider provider, List<TextChunk> chunks) {
+        return coalesce(provider, chunks, provider::embedAsync);
+    }
+
+    public EmbeddingVector embed(EmbeddingProvider provider, TextChunk chunk) {
+        return single(chunk, coalesce(provider, List.of(chunk),
+                leaders -> Mono.fromCallable(() -> List.of(provider.embed(leaders.get(0)))))).block();
+    }
+
+    public Mono<EmbeddingVector> embedAsync(EmbeddingProvider provider, TextChunk chunk) {
+        return single(chunk, coalesce(provider, List.of(chunk),
+                leaders -> provider.embedAsync(leaders.get(0)).map(List::of)));
+    }
+
+    private Mono<EmbeddingVector> single(TextChunk chunk, Mono<List<EmbeddingVector>> vectors) {
+        return vectors.map(list -> {
+            if (list.isEmpty()) {
+                throw new IllegalStateException("No embedding generated for chunk: " + chunk.getChunkId());
+            }
+            return list.get(0);
+        });
+    }
+
+    /**
+     * Claims every distinct text that nobody else is embedding, embeds those through the
+     * provider call, and waits for the rest. The result keeps request order; chunks the
+     * provider could not embed are left out, as {@link EmbeddingProvider#embed(List)} does.
+     */
+    private Mono<List<EmbeddingVector>> coalesce(EmbeddingProvider provider, List<TextChunk> chunks,
+                                                 Function<List<TextChunk>, Mono<List<EmbeddingVector>>> call) {
+        if (!enabled || chunks.isEmpty()) {
+            return call.apply(chunks);
+        }
+        return Mono.defer(() -> {
+            List<String> keys = new ArrayList<>(chunks.size());
+            Map<String, CompletableFuture<float[]>> results = new HashMap<>();
+            Map<String, CompletableFuture<float[]>> owned = new LinkedHashMap<>();
+            List<TextChunk> leaders = new ArrayList<>();
+            int batchDuplicates = 0;
+            int inFlightDuplicates = 0;
+
+            for (TextChunk chunk : chunks) {
+                String key = key(provider, chunk);
+                keys.add(key);
+                if (results.containsKey(key)) {
+                    batchDuplicates++;
+                    continue;
+                }
+                CompletableFuture<float[]> claim = new CompletableFuture<>();
+                CompletableFuture<float[]> existing = inFlight.putIfAbsent(key, claim);
+                if (existing != null) {
+                    results.put(key, existing);
+                    inFlightDuplicates++;
+                } else {
+                    results.put(key, claim);
+                    owned.put(key, claim);
+                    leaders.add(chunk);
+                }
+            }
+
+            inputCounter.increment(chunks.size());
+            upstreamCounter.increment(leaders.size());
+            batchDuplicateCounter.increment(batchDuplicates);
+            inFlightDuplicateCounter.increment(inFlightDuplicates);
+            if (batchDuplicates + inFlightDuplicates > 0) {
+                log.info("Coalesced {} of {} chunks ({} duplicate in batch, {} already in flight)",
+                        batchDuplicates + inFlightDuplicates, chunks.size(), batchDuplicates, inFlightDuplicates);
+            }
+
+            Mono<Void> lead = leaders.isEmpty() ? Mono.empty() : call.apply(leaders)
+                    .doOnNext(vectors -> complete(leaders, owned, vectors))
+                    .doOnError(e -> owned.values().forEach(f -> f.completeExceptionally(e)))
+                    .doFinally(signal -> release(owned, signal))
+                    .then();
+
+            CompletableFuture<Void> all = CompletableFuture.allOf(results.values().toArray(new CompletableFuture[0]));
+            return lead.then(Mono.fromFuture(all))
+                    .then(Mono.fromCallable(() -> assemble(chunks, keys, results)));
+        });
+    }
+
+    private void complete(List<TextChunk> leaders, Map<String, CompletableFuture<float[]>> owned,
+                          List<EmbeddingVector> vectors) {
+        Map<String, Deque<EmbeddingVector>> byId = new HashMap<>();
+        for (EmbeddingVector vector : vectors) {
+            byId.computeIfAbsent(vector.getId(), id -> new ArrayDeque<>()).add(vector);
+        }
+        List<CompletableFuture<float[]>> claims = new ArrayList<>(owned.values());
+        for (int i = 0; i < leaders.size(); i++) {
+            Deque<EmbeddingVector> candidates = byId.get(leaders.get(i).getChunkId());
+            EmbeddingVector vector = candidates != null ? candidates.poll() : null;
+            // null marks a chunk the provider skipped; duplicates of it are skipped as well
+            claims.get(i).complete(vector != null ? vector.getVector() : null);
+        }
+    }
+
+    /**
+     * Unblocks anyone still waiting on a claim (the leading request was cancelled or the call
+     * completed without a value) and frees the texts for the next caller.
+     */
+    private void release(Map<String, CompletableFuture<float[]>> owned, SignalType signal) {
+        owned.forEach((key, claim) -> {
+            claim.completeExceptionally(signal == SignalType.CANCEL
+                    ? new CancellationException("Leading embedding request was cancelled")
+                    : new IllegalStateException("Embedding call completed without a result"));
+            inFlight.remove(key, claim);
+        });
+    }
+
+    private static List<EmbeddingVector> assemble(List<TextChunk> chunks, List<String> keys,
+                                                  Map<String, CompletableFuture<float[]>> results) {
+        List<EmbeddingVector> vectors = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            float[] vector = results.get(keys.get(i)).join();
+            if (vector == null) {
+                continue;
+            }
+            TextChunk chunk = chunks.get(i);
+            vectors.add(EmbeddingVector.builder()
+                    .id(chunk.getChunkId())
+                    .vector(vector)
+                    .metadata(chunk.getMetadata())
+                    .build());
+        }
+        return vectors;
+    }
+
+    private static String key(EmbeddingProvider provider, TextChunk chunk) {
+        return provider.getName() + '\u0000' + normalize(chunk.getContent());
+    }
+
+    /**
+     * Folds only differences that should not matter to the model: Unicode composition, line
+     * endings and surrounding whitespace.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFC)
+                .replace("\r\n", "\n")
+                .strip();
+    }
+
+    private double dedupRatio() {
+        double inputs = inputCounter.count();
+        return inputs == 0 ? 0 : 1 - upstreamCounter.count() / inputs;
+    }
+}
@@ -0,0 +1,48 @@
+package com.reposync.embedding.provider;
+
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.TextChunk;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Source of embedding vectors. Implementations are Spring beans and are selected by name
+ * through {@link EmbeddingProviderRouter}.
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * Name used to reference the provider in embedding.routing configuration.
+     */
+    String getName();
+
+    /**
+     * Embeds the chunks. Chunks the provider could not embed are left out of the result.
+     */
+    List<EmbeddingVector> embed(List<TextChunk> chunks);
+
+    /**
+     * Embeds a single chunk, failing if no vector could be produced.
+     */
+    default EmbeddingVector embed(TextChunk chunk) {
+        List<EmbeddingVector> vectors = embed(List.of(chunk));
+        if (vectors.isEmpty()) {
+            throw new IllegalStateException("No embedding generated for chunk: " + chunk.getChunkId());
+        }
+        return vectors.get(0);
+    }
+
+    /**
+     * Non-blocking variant. Local providers are CPU bound, so by default the work is moved off
+     * the calling thread; remote providers should override this with a truly async call.
+     */
+    default Mono<List<EmbeddingVector>> embedAsync(List<TextChunk> chunks) {
+        return Mono.fromCallable(() -> embed(chunks)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    default Mono<EmbeddingVector> embedAsync(TextChunk chunk) {
+        return Mono.fromCallable(() -> embed(chunk)).subscribeOn(Schedulers.boundedElastic());
+    }
+}
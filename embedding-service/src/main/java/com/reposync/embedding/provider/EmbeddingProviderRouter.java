@@ -0,0 +1,146 @@
+package com.reposync.embedding.provider;
+
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.TextChunk;
+import com.reposync.embedding.config.EmbeddingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the {@link EmbeddingProvider} for each chunk from embedding.routing: a route for the
+ * target collection wins, then a route for the chunk's file_type, then the default provider.
+ * Calls go through {@link EmbeddingCoalescer} so identical texts are embedded once.
+ *
+ * Only collection routes may switch models. Queries carry no file_type, so they are embedded by
+ * the collection's provider; a file type routed to another model would land in the same
+ * collection with vectors no query can match, or a dimension Milvus rejects.
+ */
+@Slf4j
+@Service
+public class EmbeddingProviderRouter {
+
+    private static final String FILE_TYPE_KEY = "file_type";
+
+    private final Map<String, EmbeddingProvider> providers;
+    private final EmbeddingProperties.Routing routing;
+    private final EmbeddingCoalescer coalescer;
+
+    public EmbeddingProviderRouter(List<EmbeddingProvider> providers, EmbeddingProperties properties,
+                                   EmbeddingCoalescer coalescer) {
+        this.providers = providers.stream()
+                .collect(Collectors.toMap(EmbeddingProvider::getName, p -> p));
+        this.routing = properties.getRouting();
+        this.coalescer = coalescer;
+
+        // Fail at startup rather than on the first request routed to a provider that isn't there
+        List<String> routed = new ArrayList<>(routing.getFileTypes().values());
+        routed.addAll(routing.getCollections().values());
+        routed.add(routing.getDefaultProvider());
+        for (String name : routed) {
+            requireProvider(name);
+        }
+        routing.getFileTypes().forEach((fileType, provider) -> {
+            if (!provider.equals(routing.getDefaultProvider())) {
+                throw new IllegalStateException("embedding.routing.file-types." + fileType + " routes to '" + provider
+                        + "', but queries against the collection are embedded by the default provider '"
+                        + routing.getDefaultProvider() + "'; route a separate collection to '" + provider + "' instead");
+            }
+        });
+        log.info("Embedding providers: {} (default: {})", this.providers.keySet(), routing.getDefaultProvider());
+    }
+
+    public EmbeddingProvider resolve(TextChunk chunk, String collection) {
+        if (collection != null && routing.getCollections().containsKey(collection)) {
+            return requireProvider(routing.getCollections().get(collection));
+        }
+        String fileType = chunk.getMetadata() != null ? chunk.getMetadata().get(FILE_TYPE_KEY) : null;
+        if (fileType != null && routing.getFileTypes().containsKey(fileType)) {
+            return requireProvider(routing.getFileTypes().get(fileType));
+        }
+        return requireProvider(routing.getDefaultProvider());
+    }
+
+    public EmbeddingVector embed(TextChunk chunk, String collection) {
+        return coalescer.embed(resolve(chunk, collection), chunk);
+    }
+
+    public Mono<EmbeddingVector> embedAsync(TextChunk chunk, String collection) {
+        return coalescer.embedAsync(resolve(chunk, collection), chunk);
+    }
+
+    public List<EmbeddingVector> embed(List<TextChunk> chunks, String collection) {
+        Map<EmbeddingProvider, List<TextChunk>> groups = group(chunks, collection);
+        if (groups.size() == 1) {
+            Map.Entry<EmbeddingProvider, List<TextChunk>> only = groups.entrySet().iterator().next();
+            return coalescer.embed(only.getKey(), only.getValue());
+        }
+
+        List<EmbeddingVector> vectors = new ArrayList<>(chunks.size());
+        groups.forEach((provider, group) -> vectors.addAll(coalescer.embed(provider, group)));
+        return inRequestOrder(chunks, vectors);
+    }
+
+    public Mono<List<EmbeddingVector>> embedAsync(List<TextChunk> chunks, String collection) {
+        Map<EmbeddingProvider, List<TextChunk>> groups = group(chunks, collection);
+        if (groups.size() == 1) {
+            Map.Entry<EmbeddingProvider, List<TextChunk>> only = groups.entrySet().iterator().next();
+            return coalescer.embedAsync(only.getKey(), only.getValue());
+        }
+
+        return Flux.fromIterable(groups.entrySet())
+                .flatMap(entry -> coalescer.embedAsync(entry.getKey(), entry.getValue()))
+                .flatMapIterable(list -> list)
+                .collectList()
+                .map(vectors -> inRequestOrder(chunks, vectors));
+    }
+
+    private Map<EmbeddingProvider, List<TextChunk>> group(List<TextChunk> chunks, String collection) {
+        Map<EmbeddingProvider, List<TextChunk>> groups = new LinkedHashMap<>();
+        for (TextChunk chunk : chunks) {
+            groups.computeIfAbsent(resolve(chunk, collection), p -> new ArrayList<>()).add(chunk);
+        }
+        if (groups.size() > 1) {
+            log.info("Routing {} chunks across providers: {}", chunks.size(), groups.entrySet().stream()
+                    .collect(Collectors.toMap(e -> e.getKey().getName(), e -> e.getValue().size())));
+        }
+        return groups;
+    }
+
+    /**
+     * Restores request order after chunks were embedded per provider. Chunks without a vector
+     * (skipped by their provider) are left out.
+     */
+    private static List<EmbeddingVector> inRequestOrder(List<TextChunk> chunks, List<EmbeddingVector> vectors) {
+        Map<String, Deque<EmbeddingVector>> byId = new HashMap<>();
+        for (EmbeddingVector vector : vectors) {
+            byId.computeIfAbsent(vector.getId(), id -> new ArrayDeque<>()).add(vector);
+        }
+        List<EmbeddingVector> ordered = new ArrayList<>(vectors.size());
+        for (TextChunk chunk : chunks) {
+            Deque<EmbeddingVector> candidates = byId.get(chunk.getChunkId());
+            if (candidates != null && !candidates.isEmpty()) {
+                ordered.add(candidates.poll());
+            }
+        }
+        return ordered;
+    }
+
+    private EmbeddingProvider requireProvider(String name) {
+        EmbeddingProvider provider = providers.get(name);
+        if (provider == null) {
+            throw new IllegalStateException("Unknown embedding provider '" + name + "', available: " + providers.keySet());
+        }
+        return provider;
+    }
+}
@@ -0,0 +1,95 @@
+package com.reposync.embedding.provider;
+
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.TextChunk;
+import com.reposync.embedding.config.EmbeddingProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Deterministic feature-hashing embeddings: word unigrams and bigrams are hashed into a fixed
+ * number of signed buckets and the result is L2-normalized. Similar texts get similar vectors,
+ * which is enough to exercise the pipeline in tests and offline benchmarks without a model.
+ */
+@Component
+@RequiredArgsConstructor
+public class HashingEmbeddingProvider implements EmbeddingProvider {
+
+    public static final String NAME = "hashing";
+
+    private static final int SIGN_SEED = 0x9E3779B9;
+
+    private final EmbeddingProperties properties;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<EmbeddingVector> embed(List<TextChunk> chunks) {
+        List<EmbeddingVector> vectors = new ArrayList<>(chunks.size());
+        for (TextChunk chunk : chunks) {
+            vectors.add(EmbeddingVector.builder()
+                    .id(chunk.getChunkId())
+                    .vector(hash(chunk.getContent()))
+                    .metadata(chunk.getMetadata())
+                    .build());
+        }
+        return vectors;
+    }
+
+    float[] hash(String text) {
+        int dimension = properties.getHashing().getDimension();
+        float[] vector = new float[dimension];
+
+        String previous = null;
+        if (text != null) {
+            for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                addFeature(vector, token.hashCode());
+                if (previous != null) {
+                    addFeature(vector, (previous + ' ' + token).hashCode());
+                }
+                previous = token;
+            }
+        }
+
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            // Cosine similarity is undefined for the zero vector
+            vector[0] = 1f;
+            return vector;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static void addFeature(float[] vector, int hash) {
+        int mixed = mix(hash);
+        int bucket = Math.floorMod(mixed, vector.length);
+        vector[bucket] += (mix(hash ^ SIGN_SEED) & 1) == 0 ? 1f : -1f;
+    }
+
+    // MurmurHash3 finalizer, spreads String.hashCode over all bits
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,176 @@
+package com.reposync.embedding.provider;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OnnxValue;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.TextChunk;
+import com.reposync.embedding.config.EmbeddingProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a small sentence-embedding model (e.g. all-MiniLM-L6-v2 exported to ONNX) on the local
+ * CPU. Token embeddings are mean-pooled over the attention mask and L2-normalized, matching
+ * sentence-transformers. Gives an offline throughput baseline and avoids network latency for
+ * bulk re-indexing of low-value content.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "embedding.onnx", name = "enabled", havingValue = "true")
+public class OnnxEmbeddingProvider implements EmbeddingProvider {
+
+    public static final String NAME = "onnx";
+
+    private static final String INPUT_IDS = "input_ids";
+    private static final String ATTENTION_MASK = "attention_mask";
+    private static final String TOKEN_TYPE_IDS = "token_type_ids";
+
+    private final EmbeddingProperties.Onnx settings;
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final WordPieceTokenizer tokenizer;
+
+    public OnnxEmbeddingProvider(EmbeddingProperties properties) throws OrtException, IOException {
+        this.settings = properties.getOnnx();
+        if (settings.getModelPath() == null || settings.getVocabPath() == null) {
+            throw new IllegalArgumentException(
+                    "embedding.onnx.model-path and embedding.onnx.vocab-path are required when the ONNX provider is enabled");
+        }
+
+        this.environment = OrtEnvironment.getEnvironment();
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        if (settings.getThreads() > 0) {
+            options.setIntraOpNumThreads(settings.getThreads());
+        }
+        this.session = environment.createSession(settings.getModelPath(), options);
+        this.tokenizer = new WordPieceTokenizer(Path.of(settings.getVocabPath()), settings.isLowercase());
+
+        log.info("Loaded ONNX embedding model {} (inputs: {})", settings.getModelPath(), session.getInputNames());
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<EmbeddingVector> embed(List<TextChunk> chunks) {
+        List<EmbeddingVector> vectors = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i += settings.getBatchSize()) {
+            List<TextChunk> batch = chunks.subList(i, Math.min(i + settings.getBatchSize(), chunks.size()));
+            float[][] embeddings = run(batch);
+            for (int j = 0; j < batch.size(); j++) {
+                vectors.add(EmbeddingVector.builder()
+                        .id(batch.get(j).getChunkId())
+                        .vector(embeddings[j])
+                        .metadata(batch.get(j).getMetadata())
+                        .build());
+            }
+        }
+        return vectors;
+    }
+
+    private float[][] run(List<TextChunk> batch) {
+        int[][] tokenIds = new int[batch.size()][];
+        int longest = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            tokenIds[i] = tokenizer.encode(batch.get(i).getContent(), settings.getMaxSequenceLength());
+            longest = Math.max(longest, tokenIds[i].length);
+        }
+
+        long[][] inputIds = new long[batch.size()][longest];
+        long[][] attentionMask = new long[batch.size()][longest];
+        long[][] tokenTypeIds = new long[batch.size()][longest];
+        for (int i = 0; i < batch.size(); i++) {
+            for (int j = 0; j < longest; j++) {
+                boolean present = j < tokenIds[i].length;
+                inputIds[i][j] = present ? tokenIds[i][j] : tokenizer.getPadId();
+                attentionMask[i][j] = present ? 1 : 0;
+            }
+        }
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put(INPUT_IDS, OnnxTensor.createTensor(environment, inputIds));
+            inputs.put(ATTENTION_MASK, OnnxTensor.createTensor(environment, attentionMask));
+            if (session.getInputNames().contains(TOKEN_TYPE_IDS)) {
+                inputs.put(TOKEN_TYPE_IDS, OnnxTensor.createTensor(environment, tokenTypeIds));
+            }
+
+            try (OrtSession.Result result = session.run(inputs)) {
+                OnnxValue output = result.get(0);
+                Object value = output.getValue();
+                if (value instanceof float[][][] tokenEmbeddings) {
+                    return meanPool(tokenEmbeddings, attentionMask);
+                }
+                if (value instanceof float[][] sentenceEmbeddings) {
+                    for (float[] embedding : sentenceEmbeddings) {
+                        normalize(embedding);
+                    }
+                    return sentenceEmbeddings;
+                }
+                throw new IllegalStateException("Unexpected ONNX output type: " + value.getClass().getSimpleName());
+            }
+        } catch (OrtException e) {
+            throw new IllegalStateException("ONNX inference failed: " + e.getMessage(), e);
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    private static float[][] meanPool(float[][][] tokenEmbeddings, long[][] attentionMask) {
+        float[][] pooled = new float[tokenEmbeddings.length][];
+        for (int i = 0; i < tokenEmbeddings.length; i++) {
+            int hidden = tokenEmbeddings[i][0].length;
+            float[] sum = new float[hidden];
+            int count = 0;
+            for (int t = 0; t < tokenEmbeddings[i].length; t++) {
+                if (attentionMask[i][t] == 0) {
+                    continue;
+                }
+                float[] token = tokenEmbeddings[i][t];
+                for (int h = 0; h < hidden; h++) {
+                    sum[h] += token[h];
+                }
+                count++;
+            }
+            for (int h = 0; h < hidden; h++) {
+                sum[h] /= Math.max(count, 1);
+            }
+            normalize(sum);
+            pooled[i] = sum;
+        }
+        return pooled;
+    }
+
+    private static void normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+
+    @PreDestroy
+    void close() throws OrtException {
+        session.close();
+    }
+}
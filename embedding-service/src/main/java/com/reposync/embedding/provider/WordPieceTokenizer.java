@@ -0,0 +1,147 @@
+package com.reposync.embedding.provider;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * BERT WordPiece tokenizer driven by a vocab.txt file, as shipped with sentence-transformers
+ * models. Produces input ids wrapped in [CLS] ... [SEP] and truncated to the model limit.
+ */
+class WordPieceTokenizer {
+
+    private static final int MAX_WORD_CHARS = 100;
+
+    private final Map<String, Integer> vocabulary;
+    private final boolean lowercase;
+    private final int clsId;
+    private final int sepId;
+    private final int unkId;
+    private final int padId;
+
+    WordPieceTokenizer(Path vocabPath, boolean lowercase) throws IOException {
+        List<String> lines = Files.readAllLines(vocabPath, StandardCharsets.UTF_8);
+        this.vocabulary = new HashMap<>(lines.size() * 2);
+        for (int i = 0; i < lines.size(); i++) {
+            vocabulary.putIfAbsent(lines.get(i).strip(), i);
+        }
+        this.lowercase = lowercase;
+        this.clsId = requireToken("[CLS]");
+        this.sepId = requireToken("[SEP]");
+        this.unkId = requireToken("[UNK]");
+        this.padId = requireToken("[PAD]");
+    }
+
+    int getPadId() {
+        return padId;
+    }
+
+    /**
+     * Tokenizes the text into at most maxLength ids including the special tokens.
+     */
+    int[] encode(String text, int maxLength) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(clsId);
+        for (String word : basicTokenize(text == null ? "" : text)) {
+            wordPiece(word, ids);
+            if (ids.size() >= maxLength - 1) {
+                break;
+            }
+        }
+        List<Integer> truncated = ids.size() > maxLength - 1 ? ids.subList(0, maxLength - 1) : ids;
+
+        int[] result = new int[truncated.size() + 1];
+        for (int i = 0; i < truncated.size(); i++) {
+            result[i] = truncated.get(i);
+        }
+        result[result.length - 1] = sepId;
+        return result;
+    }
+
+    private List<String> basicTokenize(String text) {
+        String normalized = text;
+        if (lowercase) {
+            // Uncased BERT vocabularies expect lower case text without accents
+            normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                    .replaceAll("\\p{Mn}", "");
+        }
+
+        List<String> words = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isWhitespace(c) || Character.isISOControl(c)) {
+                flush(current, words);
+            } else if (isPunctuation(c)) {
+                flush(current, words);
+                words.add(String.valueOf(c));
+            } else {
+                current.append(c);
+            }
+        }
+        flush(current, words);
+        return words;
+    }
+
+    private void wordPiece(String word, List<Integer> ids) {
+        if (word.length() > MAX_WORD_CHARS) {
+            ids.add(unkId);
+            return;
+        }
+
+        List<Integer> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < word.length()) {
+            int end = word.length();
+            Integer pieceId = null;
+            while (start < end) {
+                String candidate = (start > 0 ? "##" : "") + word.substring(start, end);
+                pieceId = vocabulary.get(candidate);
+                if (pieceId != null) {
+                    break;
+                }
+                end--;
+            }
+            if (pieceId == null) {
+                ids.add(unkId);
+                return;
+            }
+            pieces.add(pieceId);
+            start = end;
+        }
+        ids.addAll(pieces);
+    }
+
+    private int requireToken(String token) {
+        Integer id = vocabulary.get(token);
+        if (id == null) {
+            throw new IllegalArgumentException("Vocabulary is missing special token " + token);
+        }
+        return id;
+    }
+
+    private static void flush(StringBuilder current, List<String> words) {
+        if (current.length() > 0) {
+            words.add(current.toString());
+            current.setLength(0);
+        }
+    }
+
+    private static boolean isPunctuation(char c) {
+        if ((c >= 33 && c <= 47) || (c >= 58 && c <= 64) || (c >= 91 && c <= 96) || (c >= 123 && c <= 126)) {
+            return true;
+        }
+        int type = Character.getType(c);
+        return type == Character.CONNECTOR_PUNCTUATION || type == Character.DASH_PUNCTUATION
+                || type == Character.START_PUNCTUATION || type == Character.END_PUNCTUATION
+                || type == Character.INITIAL_QUOTE_PUNCTUATION || type == Character.FINAL_QUOTE_PUNCTUATION
+                || type == Character.OTHER_PUNCTUATION;
+    }
+}
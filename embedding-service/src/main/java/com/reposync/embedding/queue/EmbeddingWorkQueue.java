@@ -0,0 +1,473 @@
+package com.reposync.embedding.queue;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.reposync.common.dto.EmbeddingJob;
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.TextChunk;
+import com.reposync.common.spool.DurableFiles;
+import com.reposync.common.spool.OffsetCheckpoint;
+import com.reposync.common.spool.SegmentLog;
+import com.reposync.embedding.config.EmbeddingProperties;
+import com.reposync.embedding.provider.EmbeddingProviderRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Restart-safe embedding queue. Submitted chunks are split into batches and appended to a
+ * segment log on disk before the caller gets its job id; a dispatcher drains the log through a
+ * fixed number of workers, so jobs proceed at whatever pace the provider's rate limits allow,
+ * independent of any HTTP timeout on the caller's side.
+ *
+ * The consumer offset only moves past a batch once its vectors are written to the job's result
+ * file, or once it is recorded as failed when it could not be processed at all. After a crash,
+ * batches past the committed offset are replayed; ones the job already records as done are
+ * skipped, and a vector written twice is returned once.
+ */
+@Slf4j
+@Service
+public class EmbeddingWorkQueue {
+
+    private static final String STATUS_QUEUED = "QUEUED";
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private final EmbeddingProviderRouter providerRouter;
+    private final EmbeddingProperties.Queue config;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, JobState> jobs = new ConcurrentHashMap<>();
+    // Offsets handed to workers -> offset after them; null until the batch is done
+    private final TreeMap<Long, Long> pending = new TreeMap<>();
+    private final Object newRecords = new Object();
+
+    private Path jobsDirectory;
+    private SegmentLog segmentLog;
+    private OffsetCheckpoint checkpoint;
+    private ExecutorService workers;
+    private Semaphore workerSlots;
+    private Thread dispatcher;
+    private volatile boolean running;
+    private volatile long committedOffset;
+
+    public EmbeddingWorkQueue(EmbeddingProviderRouter providerRouter, EmbeddingProperties properties,
+                              Jackson2ObjectMapperBuilder mapperBuilder, MeterRegistry meterRegistry) {
+        this.providerRouter = providerRouter;
+        this.config = properties.getQueue();
+        this.meterRegistry = meterRegistry;
+        this.jsonMapper = mapperBuilder.build();
+        this.cborMapper = mapperBuilder.factory(new CBORFactory()).build();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!config.isEnabled()) {
+            log.info("Embedding work queue disabled");
+            return;
+        }
+        Path directory = Path.of(config.getDirectory());
+        jobsDirectory = Files.createDirectories(directory.resolve("jobs"));
+        segmentLog = new SegmentLog(directory.resolve("log"), config.getSegmentBytes(), config.isFsync());
+        checkpoint = new OffsetCheckpoint(directory.resolve("consumer.offset"));
+        committedOffset = Math.max(checkpoint.read(0), segmentLog.startOffset());
+        loadJobs();
+
+        Gauge.builder("embedding.queue.backlog.bytes", this, queue -> queue.segmentLog.endOffset() - queue.committedOffset)
+                .description("Bytes of queued batches not yet embedded")
+                .register(meterRegistry);
+        Gauge.builder("embedding.queue.jobs.active", jobs,
+                        all -> all.values().stream().filter(state -> !state.getJob().isFinished()).count())
+                .description("Queued jobs that are not finished yet")
+                .register(meterRegistry);
+
+        running = true;
+        workerSlots = new Semaphore(config.getWorkers());
+        workers = Executors.newFixedThreadPool(config.getWorkers());
+        dispatcher = new Thread(this::dispatch, "embedding-queue-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("Embedding work queue started in {} with {} workers, resuming at offset {} of {}",
+                directory, config.getWorkers(), committedOffset, segmentLog.endOffset());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Embedding workers still busy at shutdown; their batches will be replayed on restart");
+            workers.shutdownNow();
+        }
+        segmentLog.close();
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Spools the chunks to disk and returns the job that tracks them. Once this returns the
+     * chunks survive a restart.
+     */
+    public EmbeddingJob submit(List<TextChunk> chunks, String collection) {
+        requireRunning();
+        int batchSize = config.getBatchSize();
+        int batches = (chunks.size() + batchSize - 1) / batchSize;
+        EmbeddingJob job = EmbeddingJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .collection(collection)
+                .status(batches == 0 ? STATUS_COMPLETED : STATUS_QUEUED)
+                .totalChunks(chunks.size())
+                .embeddedChunks(0)
+                .failedChunks(0)
+                .totalBatches(batches)
+                .completedBatches(0)
+                .submittedAt(LocalDateTime.now())
+                .completedAt(batches == 0 ? LocalDateTime.now() : null)
+                .build();
+        JobState state = new JobState(job, new TreeSet<>());
+
+        try {
+            // The job file goes first so a replayed batch always finds its job
+            saveJob(state);
+            jobs.put(job.getJobId(), state);
+            for (int i = 0; i < batches; i++) {
+                List<TextChunk> slice = chunks.subList(i * batchSize, Math.min(chunks.size(), (i + 1) * batchSize));
+                segmentLog.append(cborMapper.writeValueAsBytes(
+                        new QueuedBatch(job.getJobId(), collection, i, new ArrayList<>(slice))));
+            }
+        } catch (IOException e) {
+            // Batches already appended are skipped; the job finishes as FAILED and expires normally
+            synchronized (state) {
+                job.setStatus(STATUS_FAILED);
+                job.setErrorMessage("Failed to spool job: " + e.getMessage());
+                job.setCompletedAt(LocalDateTime.now());
+                try {
+                    saveJob(state);
+                } catch (IOException saveError) {
+                    log.error("Failed to mark job {} as failed: {}", job.getJobId(), saveError.getMessage());
+                }
+            }
+            throw new UncheckedIOException("Failed to spool embedding job " + job.getJobId(), e);
+        }
+        synchronized (newRecords) {
+            newRecords.notifyAll();
+        }
+        log.info("📥 Queued embedding job {} ({} chunks in {} batches)", job.getJobId(), chunks.size(), batches);
+        return copy(job);
+    }
+
+    public Optional<EmbeddingJob> getJob(String jobId) {
+        JobState state = jobs.get(jobId);
+        if (state == null) {
+            return Optional.empty();
+        }
+        synchronized (state) {
+            return Optional.of(copy(state.getJob()));
+        }
+    }
+
+    /**
+     * Vectors embedded so far for the job, in completion order, one per chunk id.
+     */
+    public List<EmbeddingVector> getVectors(String jobId) {
+        requireRunning();
+        JobState state = jobs.get(jobId);
+        if (state == null) {
+            return List.of();
+        }
+        Map<String, EmbeddingVector> vectors = new LinkedHashMap<>();
+        synchronized (state) {
+            Path file = vectorsFile(jobId);
+            if (!Files.exists(file)) {
+                return List.of();
+            }
+            try (InputStream input = Files.newInputStream(file);
+                 MappingIterator<EmbeddingVector> iterator = cborMapper.readerFor(EmbeddingVector.class).readValues(input)) {
+                while (iterator.hasNext()) {
+                    EmbeddingVector vector = iterator.next();
+                    vectors.put(vector.getId(), vector);
+                }
+            } catch (RuntimeException | IOException e) {
+                // A crash while appending leaves a partial item; that batch is replayed anyway
+                log.warn("Stopped reading vectors of job {} at a damaged item: {}", jobId, e.getMessage());
+            }
+        }
+        return new ArrayList<>(vectors.values());
+    }
+
+    private void dispatch() {
+        long position = committedOffset;
+        long lastPurge = System.currentTimeMillis();
+        while (running) {
+            try {
+                SegmentLog.Record record = segmentLog.read(position);
+                if (record == null) {
+                    synchronized (newRecords) {
+                        if (segmentLog.endOffset() <= position) {
+                            newRecords.wait(1000);
+                        }
+                    }
+                    if (System.currentTimeMillis() - lastPurge > 60_000) {
+                        purgeExpiredJobs();
+                        lastPurge = System.currentTimeMillis();
+                    }
+                    continue;
+                }
+                workerSlots.acquire();
+                synchronized (pending) {
+                    pending.put(record.offset(), null);
+                }
+                workers.execute(() -> {
+                    try {
+                        try {
+                            process(record);
+                        } catch (Exception e) {
+                            // The slot must be released either way, or no offset after it is ever committed
+                            log.error("Failed to process queued batch at offset {}: {}", record.offset(), e.getMessage(), e);
+                            failBatch(record, e);
+                        }
+                        markDone(record);
+                    } catch (Exception e) {
+                        log.error("Failed to commit queued batch at offset {}: {}", record.offset(), e.getMessage(), e);
+                    } finally {
+                        workerSlots.release();
+                    }
+                });
+                position = record.nextOffset();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Embedding work queue read failed at offset {}, retrying: {}", position, e.getMessage(), e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void process(SegmentLog.Record record) throws IOException {
+        QueuedBatch batch = cborMapper.readValue(record.payload(), QueuedBatch.class);
+        JobState state = jobs.get(batch.jobId());
+        if (state == null) {
+            log.warn("Dropping queued batch for unknown or expired job {}", batch.jobId());
+            return;
+        }
+        synchronized (state) {
+            if (state.getCompletedBatches().contains(batch.batchIndex())) {
+                log.debug("Skipping replayed batch {} of job {}", batch.batchIndex(), batch.jobId());
+                return;
+            }
+            if (state.getJob().isFinished()) {
+                log.debug("Skipping batch {} of finished job {}", batch.batchIndex(), batch.jobId());
+                return;
+            }
+            if (STATUS_QUEUED.equals(state.getJob().getStatus())) {
+                state.getJob().setStatus(STATUS_RUNNING);
+                saveJob(state);
+            }
+        }
+
+        List<EmbeddingVector> vectors;
+        String error = null;
+        try {
+            vectors = providerRouter.embed(batch.chunks(), batch.collection());
+        } catch (Exception e) {
+            log.error("Batch {} of job {} failed: {}", batch.batchIndex(), batch.jobId(), e.getMessage());
+            vectors = List.of();
+            error = e.getMessage();
+        }
+
+        synchronized (state) {
+            appendVectors(batch.jobId(), vectors);
+            completeBatch(state, batch, vectors.size(), error);
+            saveJob(state);
+        }
+    }
+
+    /**
+     * Records a batch that could not be processed (unreadable record, disk error) as failed, so
+     * its job still finishes.
+     */
+    private void failBatch(SegmentLog.Record record, Exception cause) {
+        QueuedBatch batch;
+        try {
+            batch = cborMapper.readValue(record.payload(), QueuedBatch.class);
+        } catch (IOException e) {
+            log.error("Skipping unreadable queued batch at offset {}: {}", record.offset(), e.getMessage());
+            return;
+        }
+        JobState state = jobs.get(batch.jobId());
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (!state.getCompletedBatches().contains(batch.batchIndex()) && !state.getJob().isFinished()) {
+                completeBatch(state, batch, 0, cause.getMessage());
+            }
+            try {
+                saveJob(state);
+            } catch (IOException e) {
+                log.error("Failed to save job {} after batch {} failed: {}", batch.jobId(), batch.batchIndex(), e.getMessage());
+            }
+        }
+    }
+
+    private void completeBatch(JobState state, QueuedBatch batch, int embedded, String error) {
+        EmbeddingJob job = state.getJob();
+        state.getCompletedBatches().add(batch.batchIndex());
+        job.setCompletedBatches(state.getCompletedBatches().size());
+        job.setEmbeddedChunks(job.getEmbeddedChunks() + embedded);
+        job.setFailedChunks(job.getFailedChunks() + batch.chunks().size() - embedded);
+        if (error != null) {
+            job.setErrorMessage(error);
+        }
+        if (job.getCompletedBatches() >= job.getTotalBatches()) {
+            job.setStatus(job.getEmbeddedChunks() == 0 && job.getTotalChunks() > 0 ? STATUS_FAILED : STATUS_COMPLETED);
+            job.setCompletedAt(LocalDateTime.now());
+            log.info("✅ Embedding job {} {}: {} embedded, {} failed", job.getJobId(), job.getStatus(),
+                    job.getEmbeddedChunks(), job.getFailedChunks());
+        }
+    }
+
+    /**
+     * Commits the offset up to the first batch that is still being worked on.
+     */
+    private void markDone(SegmentLog.Record record) throws IOException {
+        long commit = -1;
+        synchronized (pending) {
+            pending.put(record.offset(), record.nextOffset());
+            while (!pending.isEmpty() && pending.firstEntry().getValue() != null) {
+                commit = pending.pollFirstEntry().getValue();
+            }
+            if (commit >= 0) {
+                checkpoint.write(commit);
+                committedOffset = commit;
+            }
+        }
+        if (commit >= 0) {
+            segmentLog.deleteBefore(commit);
+        }
+    }
+
+    private void appendVectors(String jobId, List<EmbeddingVector> vectors) throws IOException {
+        if (vectors.isEmpty()) {
+            return;
+        }
+        // Forced before the batch is marked done; a new file's directory entry is synced by saveJob
+        try (FileChannel channel = FileChannel.open(vectorsFile(jobId),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (EmbeddingVector vector : vectors) {
+                ByteBuffer buffer = ByteBuffer.wrap(cborMapper.writeValueAsBytes(vector));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(true);
+        }
+    }
+
+    private void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(config.getResultRetention());
+        jobs.values().removeIf(state -> {
+            synchronized (state) {
+                EmbeddingJob job = state.getJob();
+                if (job.getCompletedAt() == null || job.getCompletedAt().isAfter(cutoff)) {
+                    return false;
+                }
+                try {
+                    Files.deleteIfExists(vectorsFile(job.getJobId()));
+                    Files.deleteIfExists(jobFile(job.getJobId()));
+                } catch (IOException e) {
+                    log.warn("Failed to delete files of expired job {}: {}", job.getJobId(), e.getMessage());
+                }
+                log.info("Expired embedding job {}", job.getJobId());
+                return true;
+            }
+        });
+    }
+
+    private void loadJobs() throws IOException {
+        try (Stream<Path> files = Files.list(jobsDirectory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".json")).toList()) {
+                JobState state = jsonMapper.readValue(file.toFile(), JobState.class);
+                jobs.put(state.getJob().getJobId(), state);
+            }
+        }
+        long unfinished = jobs.values().stream().filter(state -> !state.getJob().isFinished()).count();
+        if (unfinished > 0) {
+            log.info("Recovered {} unfinished embedding jobs from {}", unfinished, jobsDirectory);
+        }
+    }
+
+    /**
+     * Durable once it returns, so the consumer offset is never committed past a batch whose
+     * completion could still be lost.
+     */
+    private void saveJob(JobState state) throws IOException {
+        DurableFiles.replace(jobFile(state.getJob().getJobId()), jsonMapper.writeValueAsBytes(state));
+    }
+
+    private Path jobFile(String jobId) {
+        return jobsDirectory.resolve(jobId + ".json");
+    }
+
+    private Path vectorsFile(String jobId) {
+        return jobsDirectory.resolve(jobId + ".vectors");
+    }
+
+    private void requireRunning() {
+        if (!running) {
+            throw new IllegalStateException("Embedding work queue is disabled");
+        }
+    }
+
+    private static EmbeddingJob copy(EmbeddingJob job) {
+        return job.toBuilder().build();
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
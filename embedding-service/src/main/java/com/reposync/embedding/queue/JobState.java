@@ -0,0 +1,21 @@
+package com.reposync.embedding.queue;
+
+import com.reposync.common.dto.EmbeddingJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * What is persisted per job: the job as reported to callers plus which batches are done, so a
+ * batch replayed from the log after a restart is recognised and skipped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobState {
+    private EmbeddingJob job;
+    private Set<Integer> completedBatches = new TreeSet<>();
+}
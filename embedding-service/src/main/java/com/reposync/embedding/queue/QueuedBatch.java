@@ -0,0 +1,11 @@
+package com.reposync.embedding.queue;
+
+import com.reposync.common.dto.TextChunk;
+
+import java.util.List;
+
+/**
+ * One record of the work queue log: a slice of a job's chunks that is embedded in one go.
+ */
+public record QueuedBatch(String jobId, String collection, int batchIndex, List<TextChunk> chunks) {
+}
@@ -1,18 +1,24 @@
 package com.reposync.embedding.service;
 
-import com.azure.ai.openai.OpenAIClient;
 import com.azure.ai.openai.models.EmbeddingItem;
 import com.azure.ai.openai.models.Embeddings;
-import com.azure.ai.openai.models.EmbeddingsOptions;
 import com.reposync.common.dto.EmbeddingVector;
 import com.reposync.common.dto.TextChunk;
+import com.reposync.common.util.FloatVectors;
+import com.reposync.embedding.dispatch.EmbeddingBatch;
+import com.reposync.embedding.dispatch.EmbeddingBatchPlanner;
+import com.reposync.embedding.dispatch.EmbeddingDispatcher;
+import com.reposync.embedding.dispatch.EmbeddingErrorClassifier;
+import com.reposync.embedding.dispatch.EmbeddingRetryPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -20,25 +26,21 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AzureOpenAIService {
 
-    private final OpenAIClient openAIClient;
-
-    @Value("${azure.openai.embeddings-deployment}")
-    private String embeddingsDeployment;
-
-    @Value("${azure.openai.batch-size:16}")
-    private int batchSize;
+    private final EmbeddingDispatcher embeddingDispatcher;
+    private final EmbeddingBatchPlanner batchPlanner;
+    private final EmbeddingRetryPolicy retryPolicy;
+    private final PoisonChunkRegistry poisonChunkRegistry;
 
     public EmbeddingVector generateEmbedding(TextChunk chunk) {
         try {
-            EmbeddingsOptions options = new EmbeddingsOptions(List.of(chunk.getContent()));
-            Embeddings embeddings = openAIClient.getEmbeddings(embeddingsDeployment, options);
+            Embeddings embeddings = retryPolicy.execute(() -> embeddingDispatcher.embedGated(List.of(chunk.getContent())));
 
             if (embeddings.getData().isEmpty()) {
                 throw new RuntimeException("No embeddings generated for chunk: " + chunk.getChunkId());
             }
 
             EmbeddingItem item = embeddings.getData().get(0);
-            List<Float> vector = convertToFloatList(item.getEmbedding());
+            float[] vector = FloatVectors.fromDoubles(item.getEmbedding());
 
             return EmbeddingVector.builder()
                     .id(chunk.getChunkId())
@@ -53,74 +55,134 @@ public class AzureOpenAIService {
     }
 
     public List<EmbeddingVector> generateEmbeddings(List<TextChunk> chunks) {
-        List<EmbeddingVector> results = new ArrayList<>();
-
-        // Process in batches to avoid rate limits and memory issues
-        for (int i = 0; i < chunks.size(); i += batchSize) {
-            int endIndex = Math.min(i + batchSize, chunks.size());
-            List<TextChunk> batch = chunks.subList(i, endIndex);
-
-            log.info("Processing batch {}/{}: chunks {}-{}",
-                    (i / batchSize) + 1,
-                    (chunks.size() + batchSize - 1) / batchSize,
-                    i, endIndex - 1);
-
-            List<EmbeddingVector> batchResults = processBatch(batch);
-            results.addAll(batchResults);
-
-            // Small delay between batches to avoid rate limiting
-            if (endIndex < chunks.size()) {
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }
-        }
+        List<EmbeddingBatch> batches = batchPlanner.plan(chunks);
+        log.info("Processing {} chunks in {} token-budgeted batches", chunks.size(), batches.size());
 
-        return results;
+        // The dispatcher keeps several batches in flight within the configured rate limits
+        List<List<EmbeddingVector>> batchResults = embeddingDispatcher.dispatch(batches, this::processBatch);
+        return restoreOrder(chunks.size(), batches, batchResults);
     }
 
-    private List<EmbeddingVector> processBatch(List<TextChunk> batch) {
-        try {
-            List<String> texts = batch.stream()
-                    .map(TextChunk::getContent)
-                    .collect(Collectors.toList());
-
-            EmbeddingsOptions options = new EmbeddingsOptions(texts);
-            Embeddings embeddings = openAIClient.getEmbeddings(embeddingsDeployment, options);
+    /**
+     * Async mode: same batching, retry and bisection as {@link #generateEmbeddings}, but built on
+     * the non-blocking client so no thread is held while requests are in flight.
+     */
+    public Mono<List<EmbeddingVector>> generateEmbeddingsAsync(List<TextChunk> chunks) {
+        List<EmbeddingBatch> batches = batchPlanner.plan(chunks);
+        log.info("Processing {} chunks in {} token-budgeted batches (async)", chunks.size(), batches.size());
+
+        return embeddingDispatcher.dispatchAsync(batches,
+                        batch -> embedWithBisectionAsync(batch.chunks(), batch.tokenCount()))
+                .map(batchResults -> restoreOrder(chunks.size(), batches, batchResults));
+    }
 
-            List<EmbeddingVector> vectors = new ArrayList<>();
-            List<EmbeddingItem> embeddingItems = embeddings.getData();
+    public Mono<EmbeddingVector> generateEmbeddingAsync(TextChunk chunk) {
+        return retryPolicy.executeAsync(() -> embeddingDispatcher.embedAsync(List.of(chunk.getContent())))
+                .map(embeddings -> {
+                    if (embeddings.getData().isEmpty()) {
+                        throw new RuntimeException("No embeddings generated for chunk: " + chunk.getChunkId());
+                    }
+                    return toVectors(List.of(chunk), embeddings).get(0);
+                })
+                .doOnError(e -> log.error("Error generating embedding for chunk {}: {}",
+                        chunk.getChunkId(), e.getMessage(), e));
+    }
 
-            for (int i = 0; i < batch.size(); i++) {
-                TextChunk chunk = batch.get(i);
-                EmbeddingItem item = embeddingItems.get(i);
+    /**
+     * Batches were packed by length, put the vectors back in request order. Poison chunks leave
+     * a gap in their slot and are dropped.
+     */
+    private List<EmbeddingVector> restoreOrder(int total, List<EmbeddingBatch> batches,
+                                               List<List<EmbeddingVector>> batchResults) {
+        EmbeddingVector[] ordered = new EmbeddingVector[total];
+        for (int i = 0; i < batches.size(); i++) {
+            List<Integer> positions = batches.get(i).positions();
+            List<EmbeddingVector> vectors = batchResults.get(i);
+            for (int j = 0; j < positions.size(); j++) {
+                ordered[positions.get(j)] = vectors.get(j);
+            }
+        }
+        return Arrays.stream(ordered)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-                List<Float> vector = convertToFloatList(item.getEmbedding());
+    private List<EmbeddingVector> processBatch(EmbeddingBatch embeddingBatch) {
+        return embedWithBisection(embeddingBatch.chunks(), embeddingBatch.tokenCount());
+    }
 
-                vectors.add(EmbeddingVector.builder()
-                        .id(chunk.getChunkId())
-                        .vector(vector)
-                        .metadata(chunk.getMetadata())
-                        .build());
+    /**
+     * Embeds the chunks in one request. Transient failures are retried by the retry policy; if
+     * the request is rejected because of its input, the batch is split in half until the
+     * offending chunk is isolated and recorded as poison. The returned list is aligned with the
+     * input and holds null for poison chunks.
+     */
+    private List<EmbeddingVector> embedWithBisection(List<TextChunk> chunks, Integer tokenCount) {
+        List<String> texts = chunks.stream()
+                .map(TextChunk::getContent)
+                .collect(Collectors.toList());
+        try {
+            Embeddings embeddings = retryPolicy.execute(() -> tokenCount != null
+                    ? embeddingDispatcher.embed(texts, tokenCount)
+                    : embeddingDispatcher.embed(texts));
+            return toVectors(chunks, embeddings);
+        } catch (RuntimeException e) {
+            if (EmbeddingErrorClassifier.classify(e) != EmbeddingErrorClassifier.FailureType.INPUT) {
+                log.error("Error processing batch of {} chunks: {}", chunks.size(), e.getMessage(), e);
+                throw e;
+            }
+            if (chunks.size() == 1) {
+                poisonChunkRegistry.record(chunks.get(0), e);
+                return Arrays.asList((EmbeddingVector) null);
             }
 
+            int middle = chunks.size() / 2;
+            log.warn("Batch of {} chunks rejected ({}), bisecting", chunks.size(), e.getMessage());
+            List<EmbeddingVector> vectors = new ArrayList<>(chunks.size());
+            vectors.addAll(embedWithBisection(chunks.subList(0, middle), null));
+            vectors.addAll(embedWithBisection(chunks.subList(middle, chunks.size()), null));
             return vectors;
-
-        } catch (Exception e) {
-            log.error("Error processing batch: {}", e.getMessage(), e);
-            // Fallback to individual processing if batch fails
-            return batch.stream()
-                    .map(this::generateEmbedding)
-                    .collect(Collectors.toList());
         }
     }
 
-    private List<Float> convertToFloatList(List<Double> doubleList) {
-        return doubleList.stream()
-                .map(Double::floatValue)
+    private Mono<List<EmbeddingVector>> embedWithBisectionAsync(List<TextChunk> chunks, Integer tokenCount) {
+        List<String> texts = chunks.stream()
+                .map(TextChunk::getContent)
                 .collect(Collectors.toList());
+
+        return retryPolicy.executeAsync(() -> tokenCount != null
+                        ? embeddingDispatcher.embedAsync(texts, tokenCount)
+                        : embeddingDispatcher.embedAsync(texts))
+                .map(embeddings -> toVectors(chunks, embeddings))
+                .onErrorResume(e -> EmbeddingErrorClassifier.classify(e) == EmbeddingErrorClassifier.FailureType.INPUT,
+                        e -> {
+                            if (chunks.size() == 1) {
+                                poisonChunkRegistry.record(chunks.get(0), e);
+                                return Mono.just(Arrays.asList((EmbeddingVector) null));
+                            }
+                            int middle = chunks.size() / 2;
+                            log.warn("Batch of {} chunks rejected ({}), bisecting", chunks.size(), e.getMessage());
+                            return embedWithBisectionAsync(chunks.subList(0, middle), null)
+                                    .zipWith(embedWithBisectionAsync(chunks.subList(middle, chunks.size()), null),
+                                            (left, right) -> {
+                                                List<EmbeddingVector> vectors = new ArrayList<>(left);
+                                                vectors.addAll(right);
+                                                return vectors;
+                                            });
+                        });
+    }
+
+    private List<EmbeddingVector> toVectors(List<TextChunk> chunks, Embeddings embeddings) {
+        EmbeddingVector[] vectors = new EmbeddingVector[chunks.size()];
+        for (EmbeddingItem item : embeddings.getData()) {
+            TextChunk chunk = chunks.get(item.getPromptIndex());
+            vectors[item.getPromptIndex()] = EmbeddingVector.builder()
+                    .id(chunk.getChunkId())
+                    .vector(FloatVectors.fromDoubles(item.getEmbedding()))
+                    .metadata(chunk.getMetadata())
+                    .build();
+        }
+        return Arrays.asList(vectors);
     }
 }
 
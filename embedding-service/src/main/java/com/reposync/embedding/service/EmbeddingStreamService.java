@@ -0,0 +1,86 @@
+package com.reposync.embedding.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.TextChunk;
+import com.reposync.common.util.QuantizationMode;
+import com.reposync.common.util.VectorQuantizer;
+import com.reposync.embedding.config.EmbeddingProperties;
+import com.reposync.embedding.provider.EmbeddingProviderRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Embeds a stream of chunks and writes vectors back as soon as each batch completes, so callers
+ * can start storing vectors while the rest of the request is still being embedded.
+ *
+ * Chunks are read lazily: at most embedding.stream.max-in-flight-batches batches are being
+ * embedded at a time and the next batch is only read once the output has caught up, so a slow
+ * reader slows down the whole pipeline instead of building up memory.
+ */
+@Slf4j
+@Service
+public class EmbeddingStreamService {
+
+    private final EmbeddingProviderRouter providerRouter;
+    private final EmbeddingProperties properties;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+
+    public EmbeddingStreamService(EmbeddingProviderRouter providerRouter, EmbeddingProperties properties,
+                                  Jackson2ObjectMapperBuilder mapperBuilder) {
+        this.providerRouter = providerRouter;
+        this.properties = properties;
+        // The builder is a prototype bean, so switching its factory afterwards is local to us
+        this.jsonMapper = mapperBuilder.build();
+        this.cborMapper = mapperBuilder.factory(new CBORFactory()).build();
+    }
+
+    /**
+     * Vectors in batch completion order, not request order; every vector carries its chunk id.
+     */
+    public Flux<List<EmbeddingVector>> embed(Flux<TextChunk> chunks, String collection) {
+        EmbeddingProperties.Stream stream = properties.getStream();
+        QuantizationMode mode = properties.getQuantization().getMode();
+        return chunks.buffer(stream.getBatchSize())
+                .flatMap(batch -> providerRouter.embedAsync(batch, collection), stream.getMaxInFlightBatches())
+                .map(vectors -> {
+                    vectors.forEach(vector -> VectorQuantizer.encode(vector, mode));
+                    return vectors;
+                });
+    }
+
+    /**
+     * Reads newline-delimited JSON chunks from the input and writes one vector per line
+     * (NDJSON) or as a sequence of CBOR items (binary), flushing after every batch.
+     */
+    public void stream(InputStream input, OutputStream output, String collection, boolean binary) throws IOException {
+        MappingIterator<TextChunk> iterator = jsonMapper.readerFor(TextChunk.class).readValues(input);
+        Flux<TextChunk> chunks = Flux.fromIterable(() -> iterator).subscribeOn(Schedulers.boundedElastic());
+        ObjectWriter writer = (binary ? cborMapper : jsonMapper).writerFor(EmbeddingVector.class);
+
+        int written = 0;
+        for (List<EmbeddingVector> vectors : embed(chunks, collection).toIterable(1)) {
+            for (EmbeddingVector vector : vectors) {
+                output.write(writer.writeValueAsBytes(vector));
+                if (!binary) {
+                    output.write('\n');
+                }
+            }
+            output.flush();
+            written += vectors.size();
+        }
+        log.info("Streamed {} embeddings", written);
+    }
+}
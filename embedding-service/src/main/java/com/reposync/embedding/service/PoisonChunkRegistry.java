@@ -0,0 +1,58 @@
+package com.reposync.embedding.service;
+
+import com.reposync.common.dto.TextChunk;
+import com.reposync.embedding.model.PoisonChunk;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent chunks that were skipped because the model rejected them.
+ */
+@Slf4j
+@Service
+public class PoisonChunkRegistry {
+
+    private static final int MAX_ENTRIES = 1000;
+
+    private final Deque<PoisonChunk> entries = new ArrayDeque<>();
+    private final Counter poisonCounter;
+
+    public PoisonChunkRegistry(MeterRegistry meterRegistry) {
+        this.poisonCounter = Counter.builder("embedding.poison.chunks")
+                .description("Chunks skipped because the embedding model rejected them")
+                .register(meterRegistry);
+    }
+
+    public void record(TextChunk chunk, Throwable error) {
+        log.error("Skipping poison chunk {}: {}", chunk.getChunkId(), error.getMessage());
+        PoisonChunk entry = PoisonChunk.builder()
+                .chunkId(chunk.getChunkId())
+                .metadata(chunk.getMetadata())
+                .contentLength(chunk.getContent() != null ? chunk.getContent().length() : 0)
+                .reason(error.getMessage())
+                .detectedAt(LocalDateTime.now())
+                .build();
+
+        synchronized (entries) {
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.removeFirst();
+            }
+            entries.addLast(entry);
+        }
+        poisonCounter.increment();
+    }
+
+    public List<PoisonChunk> getRecent() {
+        synchronized (entries) {
+            return new ArrayList<>(entries);
+        }
+    }
+}
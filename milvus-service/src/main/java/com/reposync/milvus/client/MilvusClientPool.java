@@ -0,0 +1,319 @@
+package com.reposync.milvus.client;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.reposync.milvus.config.MilvusClientProperties;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.milvus.client.MilvusClient;
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.grpc.CheckHealthResponse;
+import io.milvus.param.LogLevel;
+import io.milvus.param.R;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Several {@link MilvusServiceClient}s, each with its own gRPC channel, behind one
+ * {@link MilvusClient}. Every call goes to the healthy channel with the fewest RPCs in flight
+ * (or the next one round-robin), so concurrent upserts and searches do not all queue on one
+ * HTTP/2 connection. Async calls count as in flight until their future completes.
+ *
+ * Channels are health-checked periodically; one that fails the check, or whose RPCs fail with
+ * UNAVAILABLE, unhealthy-threshold times in a row is taken out of rotation and reconnected. The
+ * replaced client is closed after a grace period so its in-flight RPCs can finish.
+ */
+@Slf4j
+public class MilvusClientPool implements AutoCloseable {
+
+    private static final long HEALTH_CHECK_TIMEOUT_SECONDS = 10;
+
+    private final Supplier<MilvusServiceClient> connector;
+    private final Channel[] channels;
+    private final boolean leastInFlight;
+    private final int unhealthyThreshold;
+    private final Duration closeGracePeriod;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "milvus-client-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final MilvusClient client;
+
+    public MilvusClientPool(Supplier<MilvusServiceClient> connector, MilvusClientProperties properties,
+                            MeterRegistry meterRegistry) {
+        if (properties.getChannels() < 1) {
+            throw new IllegalArgumentException("milvus.client.channels must be at least 1: " + properties.getChannels());
+        }
+        this.connector = connector;
+        this.leastInFlight = switch (properties.getSelection().toLowerCase()) {
+            case "least-in-flight" -> true;
+            case "round-robin" -> false;
+            default -> throw new IllegalArgumentException(
+                    "milvus.client.selection must be least-in-flight or round-robin: " + properties.getSelection());
+        };
+        this.unhealthyThreshold = Math.max(1, properties.getUnhealthyThreshold());
+        this.closeGracePeriod = properties.getCloseGracePeriod();
+
+        this.channels = new Channel[properties.getChannels()];
+        for (int i = 0; i < channels.length; i++) {
+            Channel channel = new Channel(i, connector.get());
+            String tag = String.valueOf(i);
+            Gauge.builder("milvus.client.in_flight", channel.inFlight, AtomicInteger::get)
+                    .description("Milvus RPCs in flight per channel")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+            Gauge.builder("milvus.client.healthy", channel, c -> c.healthy ? 1 : 0)
+                    .description("Whether the channel takes new RPCs")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+            channel.calls = Counter.builder("milvus.client.calls")
+                    .description("Milvus RPCs sent per channel")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+            channel.reconnects = Counter.builder("milvus.client.reconnects")
+                    .description("Times the channel was replaced after failing health checks")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+            channels[i] = channel;
+        }
+
+        this.client = (MilvusClient) Proxy.newProxyInstance(MilvusClient.class.getClassLoader(),
+                new Class<?>[]{MilvusClient.class}, (proxy, method, args) -> invoke(method, args));
+
+        long interval = properties.getHealthCheckInterval().toMillis();
+        maintenance.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("✅ Milvus client pool ready: {} channels, {} selection", channels.length,
+                leastInFlight ? "least-in-flight" : "round-robin");
+    }
+
+    /**
+     * The pooled client. Per-call settings (withTimeout, withRetry) are not supported on it;
+     * they belong in the connection settings.
+     */
+    public MilvusClient client() {
+        return client;
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        maintenance.shutdownNow();
+        for (Channel channel : channels) {
+            closeQuietly(channel.client);
+        }
+    }
+
+    private Object invoke(Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> args[0] == client;
+                case "hashCode" -> System.identityHashCode(this);
+                default -> "MilvusClientPool[" + channels.length + " channels]";
+            };
+        }
+        switch (method.getName()) {
+            case "close" -> {
+                close();
+                return null;
+            }
+            case "setLogLevel" -> {
+                for (Channel channel : channels) {
+                    channel.client.setLogLevel((LogLevel) args[0]);
+                }
+                return null;
+            }
+            case "withTimeout", "withRetry", "withRetryInterval" -> throw new UnsupportedOperationException(
+                    method.getName() + " is not supported on the pooled Milvus client");
+            default -> {
+                // Every other method is an RPC
+            }
+        }
+
+        Channel channel = select();
+        channel.inFlight.incrementAndGet();
+        channel.calls.increment();
+        boolean async = false;
+        try {
+            Object result = method.invoke(channel.client, args);
+            if (result instanceof ListenableFuture<?> future) {
+                async = true;
+                future.addListener(() -> {
+                    channel.inFlight.decrementAndGet();
+                    if (!future.isCancelled()) {
+                        try {
+                            record(channel, Futures.getDone(future));
+                        } catch (Exception ignored) {
+                            // The caller sees the failure through the future
+                        }
+                    }
+                }, MoreExecutors.directExecutor());
+            } else {
+                record(channel, result);
+            }
+            return result;
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            if (!async) {
+                channel.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private Channel select() {
+        int start = Math.floorMod(next.getAndIncrement(), channels.length);
+        Channel best = null;
+        for (int i = 0; i < channels.length; i++) {
+            Channel channel = channels[(start + i) % channels.length];
+            if (!channel.healthy) {
+                continue;
+            }
+            if (!leastInFlight) {
+                return channel;
+            }
+            if (best == null || channel.inFlight.get() < best.inFlight.get()) {
+                best = channel;
+            }
+        }
+        // With every channel down, keep spreading calls; they fail or succeed on their own
+        return best != null ? best : channels[start];
+    }
+
+    /**
+     * UNAVAILABLE means the connection itself is broken; other errors say nothing about the channel.
+     */
+    private void record(Channel channel, Object result) {
+        if (!(result instanceof R<?> response)) {
+            return;
+        }
+        if (isTransportFailure(response.getException(), false)) {
+            markFailed(channel, "RPC failed with UNAVAILABLE");
+        } else if (response.getStatus() == R.Status.Success.getCode()) {
+            channel.failures.set(0);
+        }
+    }
+
+    private void checkHealth() {
+        for (Channel channel : channels) {
+            if (closed.get()) {
+                return;
+            }
+            if (!channel.healthy) {
+                reconnect(channel);
+                continue;
+            }
+            try {
+                R<CheckHealthResponse> response = probe(channel.client);
+                if (isTransportFailure(response.getException(), true)) {
+                    markFailed(channel, "health check failed: " + response.getException().getMessage());
+                } else {
+                    channel.failures.set(0);
+                    if (response.getStatus() == R.Status.Success.getCode() && !response.getData().getIsHealthy()) {
+                        // Reconnecting does not help when the server reports itself unhealthy
+                        log.warn("Milvus reports itself unhealthy on channel {}: {}", channel.index,
+                                response.getData().getReasonsList());
+                    }
+                }
+            } catch (Exception e) {
+                markFailed(channel, "health check failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void markFailed(Channel channel, String reason) {
+        if (channel.failures.incrementAndGet() >= unhealthyThreshold && channel.healthy) {
+            channel.healthy = false;
+            log.warn("⚠️ Milvus channel {} taken out of rotation after {} failures ({}), reconnecting",
+                    channel.index, channel.failures.get(), reason);
+            if (!closed.get()) {
+                maintenance.execute(() -> reconnect(channel));
+            }
+        }
+    }
+
+    private void reconnect(Channel channel) {
+        if (channel.healthy || closed.get()) {
+            return;
+        }
+        MilvusServiceClient fresh;
+        try {
+            fresh = connector.get();
+        } catch (Exception e) {
+            log.warn("Reconnecting Milvus channel {} failed, retrying at the next health check: {}",
+                    channel.index, e.getMessage());
+            return;
+        }
+        // Building a client does not connect; only put it in rotation once Milvus answers on it
+        R<CheckHealthResponse> probe = probe(fresh);
+        if (isTransportFailure(probe.getException(), true)) {
+            log.debug("Milvus still unreachable on channel {}, retrying at the next health check: {}",
+                    channel.index, probe.getException().getMessage());
+            closeQuietly(fresh);
+            return;
+        }
+        MilvusServiceClient old = channel.client;
+        channel.client = fresh;
+        channel.failures.set(0);
+        channel.healthy = true;
+        channel.reconnects.increment();
+        log.info("✅ Milvus channel {} reconnected", channel.index);
+        maintenance.schedule(() -> closeQuietly(old), closeGracePeriod.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static R<CheckHealthResponse> probe(MilvusServiceClient client) {
+        // No SDK retries, so a dead channel is noticed in one check (withTimeout must come last)
+        return client.withRetry(1)
+                .withTimeout(HEALTH_CHECK_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .checkHealth();
+    }
+
+    private static boolean isTransportFailure(Exception exception, boolean includeDeadline) {
+        if (!(exception instanceof StatusRuntimeException statusException)) {
+            return false;
+        }
+        Status.Code code = statusException.getStatus().getCode();
+        return code == Status.Code.UNAVAILABLE || (includeDeadline && code == Status.Code.DEADLINE_EXCEEDED);
+    }
+
+    private static void closeQuietly(MilvusServiceClient client) {
+        try {
+            client.close(5);
+        } catch (Exception e) {
+            log.debug("Closing Milvus client failed: {}", e.getMessage());
+        }
+    }
+
+    private static final class Channel {
+        private final int index;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile MilvusServiceClient client;
+        private volatile boolean healthy = true;
+        private Counter calls;
+        private Counter reconnects;
+
+        private Channel(int index, MilvusServiceClient client) {
+            this.index = index;
+            this.client = client;
+        }
+    }
+}
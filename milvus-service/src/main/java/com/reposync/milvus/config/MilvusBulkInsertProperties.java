@@ -0,0 +1,31 @@
+package com.reposync.milvus.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bulk import for initial loads: vectors are written as row-based JSON files to the object
+ * storage bucket Milvus itself uses (MinIO locally, S3 in the cloud), and Milvus imports them
+ * with bulkInsert instead of receiving every row over gRPC.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "milvus.bulk-insert")
+public class MilvusBulkInsertProperties {
+
+    private boolean enabled = false;
+    private String endpoint = "http://localhost:9000";
+    private String accessKey = "minioadmin";
+    private String secretKey = "minioadmin";
+    // Must be the bucket Milvus is configured with (minio.bucketName, a-bucket by default)
+    private String bucket = "a-bucket";
+    private String prefix = "reposync-bulk";
+    // One file and one import task per this many rows
+    private int rowsPerFile = 50_000;
+    private Duration pollInterval = Duration.ofSeconds(2);
+    private Duration timeout = Duration.ofHours(1);
+    private boolean deleteFilesAfterImport = true;
+}
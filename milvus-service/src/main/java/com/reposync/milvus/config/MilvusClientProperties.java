@@ -0,0 +1,26 @@
+package com.reposync.milvus.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Connections to Milvus. Each channel is its own gRPC connection, so concurrent upserts and
+ * searches are spread over several HTTP/2 connections instead of queueing on one.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "milvus.client")
+public class MilvusClientProperties {
+
+    private int channels = 4;
+    // least-in-flight or round-robin
+    private String selection = "least-in-flight";
+    private Duration healthCheckInterval = Duration.ofSeconds(30);
+    // Consecutive failed health checks (or unavailable RPCs) before a channel is reconnected
+    private int unhealthyThreshold = 2;
+    // How long a replaced channel may finish its in-flight RPCs before it is closed
+    private Duration closeGracePeriod = Duration.ofSeconds(30);
+}
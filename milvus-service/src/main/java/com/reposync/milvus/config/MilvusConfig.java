@@ -1,7 +1,10 @@
 package com.reposync.milvus.config;
 
+import com.reposync.milvus.client.MilvusClientPool;
+import io.milvus.client.MilvusClient;
 import io.milvus.client.MilvusServiceClient;
 import io.milvus.param.ConnectParam;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -21,7 +24,12 @@ public class MilvusConfig {
     private String milvusToken;
 
     @Bean
-    public MilvusServiceClient milvusClient() {
+    public MilvusClient milvusClient(MilvusClientPool milvusClientPool) {
+        return milvusClientPool.client();
+    }
+
+    @Bean(destroyMethod = "close")
+    public MilvusClientPool milvusClientPool(MilvusClientProperties properties, MeterRegistry meterRegistry) {
         // 1. Fail fast with clear error message if configuration is missing
         if (milvusUri == null || milvusUri.trim().isEmpty()) {
             throw new IllegalArgumentException(
@@ -52,7 +60,10 @@ public class MilvusConfig {
         }
 
         try {
-            MilvusServiceClient client = new MilvusServiceClient(builder.build());
+            // 4. One gRPC channel per pooled client
+            ConnectParam connectParam = builder.build();
+            MilvusClientPool pool = new MilvusClientPool(() -> new MilvusServiceClient(connectParam), properties, meterRegistry);
+            MilvusClient client = pool.client();
             log.info("✅ Milvus client created successfully");
 
             // Test connection by listing collections
@@ -71,7 +82,7 @@ public class MilvusConfig {
                 log.warn("⚠️ Milvus connection test failed (may work later): {}", connTest.getMessage());
             }
 
-            return client;
+            return pool;
         } catch (Exception e) {
             // Catch SDK-specific errors (like bad URI format) and rethrow clearly
             log.error("❌ Failed to initialize Milvus Client: {}", e.getMessage(), e);
@@ -0,0 +1,61 @@
+package com.reposync.milvus.config;
+
+import com.reposync.common.dto.IndexProfile;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Named vector index profiles. New collections are indexed with the profile configured for their
+ * name (or the alias they are rebuilt behind), else with the default. The built-in profiles
+ * ({@link IndexProfile#builtIn()}) are always there; entries under profiles add to or replace them.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "milvus.index")
+public class MilvusIndexProperties {
+
+    // AUTOINDEX is the only index type Zilliz Cloud accepts
+    private String defaultProfile = "autoindex";
+    private Map<String, IndexProfile> profiles = new LinkedHashMap<>();
+    // Collection or alias name -> profile name
+    private Map<String, String> collections = new LinkedHashMap<>();
+
+    public IndexProfile profile(String name) {
+        IndexProfile profile = profiles.containsKey(name) ? profiles.get(name) : IndexProfile.builtIn().get(name);
+        if (profile == null || profile.getIndexType() == null) {
+            throw new IllegalArgumentException("Unknown index profile: " + name);
+        }
+        return profile;
+    }
+
+    public String profileNameFor(String collectionName) {
+        return collections.getOrDefault(collectionName, defaultProfile);
+    }
+
+    /**
+     * Search params for a collection whose vector index has the given type: those of the profile
+     * configured for the collection when it matches the index, else of the first profile with
+     * that index type. Empty when no profile matches, e.g. for an index built outside this service.
+     */
+    public Map<String, Object> searchParams(String collectionName, String indexType) {
+        if (indexType == null) {
+            return Map.of();
+        }
+        Map<String, IndexProfile> candidates = new LinkedHashMap<>();
+        String configured = profileNameFor(collectionName);
+        if (profiles.containsKey(configured) || IndexProfile.builtIn().containsKey(configured)) {
+            candidates.put(configured, profile(configured));
+        }
+        profiles.forEach(candidates::putIfAbsent);
+        IndexProfile.builtIn().forEach(candidates::putIfAbsent);
+        return candidates.values().stream()
+                .filter(profile -> indexType.equalsIgnoreCase(profile.getIndexType()))
+                .findFirst()
+                .map(profile -> profile.getSearchParams() != null ? profile.getSearchParams() : Map.<String, Object>of())
+                .orElse(Map.of());
+    }
+}
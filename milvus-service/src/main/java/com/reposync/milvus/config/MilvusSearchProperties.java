@@ -0,0 +1,36 @@
+package com.reposync.milvus.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Defaults and limits for /api/milvus/search. Results are cached briefly so repeated queries
+ * (the same vectors, filter and params) skip Milvus; writes to a collection drop its entries.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "milvus.search")
+public class MilvusSearchProperties {
+
+    private int defaultTopK = 10;
+    private int maxTopK = 1000;
+    private int maxQueryVectors = 64;
+    // Must match the metric the vector index was built with
+    private String metricType = "COSINE";
+    private String defaultConsistencyLevel = "BOUNDED";
+    // Search params laid over the index profile's unless a request overrides them, e.g. ef or nprobe
+    private Map<String, Object> defaultParams = new LinkedHashMap<>();
+    private Cache cache = new Cache();
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private Duration ttl = Duration.ofSeconds(30);
+        private int maxSize = 1024;
+    }
+}
@@ -0,0 +1,31 @@
+package com.reposync.milvus.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * How vectors are written to Milvus. Batches are sized by payload bytes and adjusted from
+ * observed latency (additive increase, multiplicative decrease); up to max-in-flight batches
+ * are sent concurrently.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "milvus.upsert")
+public class MilvusUpsertProperties {
+
+    private boolean deleteStaleChunks = true;
+    private int maxInFlight = 4;
+    private long targetBatchBytes = 4L * 1024 * 1024;
+    private int initialBatchSize = 64;
+    private int minBatchSize = 8;
+    private int maxBatchSize = 2000;
+    // Batches faster than this grow by batch-size-step; slower ones are halved
+    private Duration targetLatency = Duration.ofSeconds(2);
+    private int batchSizeStep = 32;
+    private int maxAttempts = 5;
+    private Duration initialBackoff = Duration.ofMillis(500);
+    private Duration maxBackoff = Duration.ofSeconds(30);
+}
@@ -0,0 +1,36 @@
+package com.reposync.milvus.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Write-ahead log in front of upserts. A request is acknowledged once it is appended (and
+ * fsynced) to the log; a flusher drains the log to Milvus, merging consecutive requests into
+ * one upsert and retrying until Milvus takes them.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "milvus.wal")
+public class MilvusWalProperties {
+
+    private boolean enabled = true;
+    private String directory = "data/milvus-wal";
+    private long segmentBytes = 64L * 1024 * 1024;
+    private boolean fsync = true;
+    // Requests are merged into one upsert until it holds this many vectors
+    private int groupCommitMaxVectors = 2000;
+    // How long the flusher waits for more requests before sending a group that is not full
+    private Duration groupCommitLinger = Duration.ofMillis(50);
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofMinutes(1);
+    // New requests are refused while this many bytes are waiting for Milvus
+    private long maxBacklogBytes = 4L * 1024 * 1024 * 1024;
+    // How long reindex completion and repository deletes wait for a collection's pending writes
+    private Duration drainTimeout = Duration.ofMinutes(10);
+    // How long the status of finished writes is kept; failed writes to a collection that is being
+    // rebuilt stay until the rebuild is done
+    private Duration statusRetention = Duration.ofHours(24);
+}
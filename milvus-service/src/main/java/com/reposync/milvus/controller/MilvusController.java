@@ -1,9 +1,22 @@
 package com.reposync.milvus.controller;
 
+import com.reposync.common.dto.DocumentChunkIds;
 import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.ReindexStatus;
+import com.reposync.common.dto.SearchRequest;
+import com.reposync.common.dto.SearchResponse;
+import com.reposync.common.dto.VectorWrite;
+import com.reposync.milvus.service.BulkInsertResult;
+import com.reposync.milvus.service.BulkInsertService;
+import com.reposync.milvus.service.CollectionLayout;
+import com.reposync.milvus.service.MigrationResult;
 import com.reposync.milvus.service.MilvusService;
+import com.reposync.milvus.service.ReindexService;
+import com.reposync.milvus.service.VectorSearchService;
+import com.reposync.milvus.wal.VectorWriteAheadLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,14 +29,23 @@ import java.util.List;
 public class MilvusController {
 
     private final MilvusService milvusService;
+    private final VectorSearchService vectorSearchService;
+    private final ReindexService reindexService;
+    private final BulkInsertService bulkInsertService;
+    private final VectorWriteAheadLog writeAheadLog;
 
     @PostMapping("/collection/create")
     public ResponseEntity<String> createCollection(@RequestParam String collectionName,
-                                                    @RequestParam int dimension) {
+                                                    @RequestParam int dimension,
+                                                    @RequestParam(required = false) String layout,
+                                                    @RequestParam(required = false) String indexProfile) {
         log.info("Creating collection: {} with dimension: {}", collectionName, dimension);
         try {
-            milvusService.createCollection(collectionName, dimension);
+            CollectionLayout collectionLayout = layout != null ? CollectionLayout.from(layout) : milvusService.defaultLayout();
+            milvusService.createCollection(collectionName, dimension, collectionLayout, indexProfile, true);
             return ResponseEntity.ok("Collection created successfully");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Rejected collection: " + e.getMessage());
         } catch (Exception e) {
             log.error("Failed to create collection {}: {}", collectionName, e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -31,24 +53,53 @@ public class MilvusController {
         }
     }
 
+    /**
+     * Upserts vectors. With the write-ahead log enabled the request is acknowledged with 202 and
+     * a write once it is logged, and written to Milvus in the background (see GET
+     * /vectors/writes/{writeId}); sync=true waits for Milvus instead.
+     */
     @PostMapping("/vectors/upsert")
-    public ResponseEntity<String> upsertVectors(@RequestParam String collectionName,
-                                                 @RequestBody List<EmbeddingVector> vectors) {
+    public ResponseEntity<?> upsertVectors(@RequestParam String collectionName,
+                                           @RequestParam(defaultValue = "false") boolean sync,
+                                           @RequestBody List<EmbeddingVector> vectors) {
         log.info("Received upsert request: {} vectors to collection: {}", vectors.size(), collectionName);
+        if (writeAheadLog.isEnabled() && !sync) {
+            try {
+                VectorWrite write = writeAheadLog.append(collectionName, vectors);
+                log.info("📥 Accepted {} vectors for {} as write {}", vectors.size(), collectionName, write.getWriteId());
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(write);
+            } catch (IllegalStateException e) {
+                log.warn("Refused upsert to {}: {}", collectionName, e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+            } catch (Exception e) {
+                log.error("Failed to log upsert to {}: {}", collectionName, e.getMessage(), e);
+                return ResponseEntity.internalServerError()
+                        .body("Failed to upsert vectors: " + e.getMessage());
+            }
+        }
+
         long startTime = System.currentTimeMillis();
         try {
+            // Logged writes to the collection go first, as they were accepted earlier
+            writeAheadLog.awaitDrained(collectionName);
+
             // Log sample vector info
             if (!vectors.isEmpty()) {
                 EmbeddingVector first = vectors.get(0);
                 log.debug("First vector: id={}, dimension={}",
                         first.getId(),
-                        first.getVector() != null ? first.getVector().size() : 0);
+                        first.dimension());
             }
 
             milvusService.upsertVectors(collectionName, vectors);
             long duration = System.currentTimeMillis() - startTime;
             log.info("Successfully upserted {} vectors to {} in {}ms", vectors.size(), collectionName, duration);
             return ResponseEntity.ok("Vectors upserted successfully (" + vectors.size() + " vectors in " + duration + "ms)");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Rejected vectors: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Interrupted");
         } catch (Exception e) {
             long duration = System.currentTimeMillis() - startTime;
             log.error("Failed to upsert vectors to {} after {}ms: {}", collectionName, duration, e.getMessage(), e);
@@ -57,6 +108,176 @@ public class MilvusController {
         }
     }
 
+    @GetMapping("/vectors/writes/{writeId}")
+    public ResponseEntity<VectorWrite> getWrite(@PathVariable long writeId) {
+        return writeAheadLog.getWrite(writeId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Loads vectors through Milvus bulk insert instead of upsert. Rows are inserted, not
+     * replaced, so use it for empty collections such as a reindex target.
+     */
+    @PostMapping("/vectors/bulk-import")
+    public ResponseEntity<BulkInsertResult> bulkImport(@RequestParam String collectionName,
+                                                       @RequestBody List<EmbeddingVector> vectors) {
+        if (!bulkInsertService.isEnabled()) {
+            log.warn("Bulk import requested for {} but milvus.bulk-insert is disabled", collectionName);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        log.info("Received bulk import request: {} vectors to collection: {}", vectors.size(), collectionName);
+        try {
+            BulkInsertResult result = bulkInsertService.importVectors(collectionName, vectors);
+            return result.failures().isEmpty()
+                    ? ResponseEntity.ok(result)
+                    : ResponseEntity.internalServerError().body(result);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected bulk import into {}: {}", collectionName, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Failed to bulk import into {}: {}", collectionName, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Deletes the rows of each document whose ids are not in its list, i.e. chunks left over
+     * from an earlier version. Send every document of a sync once, after its vectors are stored.
+     */
+    @PostMapping("/vectors/delete-stale")
+    public ResponseEntity<String> deleteStaleChunks(@RequestParam String collectionName,
+                                                    @RequestBody List<DocumentChunkIds> documents) {
+        log.info("Deleting stale chunks of {} documents from {}", documents.size(), collectionName);
+        try {
+            // Rows still in the write-ahead log would otherwise come back after the delete
+            writeAheadLog.awaitDrained(collectionName);
+            int deleted = milvusService.deleteStaleChunks(collectionName, documents);
+            return ResponseEntity.ok("Deleted " + deleted + " stale vectors");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Interrupted");
+        } catch (Exception e) {
+            log.error("Failed to delete stale chunks from {}: {}", collectionName, e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body("Failed to delete stale chunks: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/vectors")
+    public ResponseEntity<String> deleteRepository(@RequestParam String collectionName,
+                                                   @RequestParam String repository) {
+        log.info("Deleting chunks of repository {} from {}", repository, collectionName);
+        try {
+            // Otherwise chunks of the repository still in the write-ahead log would come back
+            writeAheadLog.awaitDrained(collectionName);
+            int deleted = milvusService.deleteRepository(collectionName, repository);
+            return ResponseEntity.ok("Deleted " + deleted + " vectors");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Interrupted");
+        } catch (Exception e) {
+            log.error("Failed to delete repository {} from {}: {}", repository, collectionName, e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body("Failed to delete vectors: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/collection/{collectionName}/migrate")
+    public ResponseEntity<MigrationResult> migrateCollection(@PathVariable String collectionName,
+                                                             @RequestParam String targetCollection,
+                                                             @RequestParam(required = false) String layout) {
+        log.info("Migrating collection {} to {}", collectionName, targetCollection);
+        try {
+            MigrationResult result = layout != null
+                    ? milvusService.migrateCollection(collectionName, targetCollection, CollectionLayout.from(layout))
+                    : milvusService.migrateCollection(collectionName, targetCollection);
+            log.info("Migration finished: {}", result);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected migration of {}: {}", collectionName, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Failed to migrate {} to {}: {}", collectionName, targetCollection, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Starts a blue/green rebuild of the collection behind alias; upsert into the returned
+     * targetCollection, then call complete to index, load and switch the alias.
+     */
+    @PostMapping("/reindex")
+    public ResponseEntity<ReindexStatus> startReindex(@RequestParam String alias,
+                                                      @RequestParam int dimension,
+                                                      @RequestParam(required = false) String layout,
+                                                      @RequestParam(required = false) String indexProfile) {
+        log.info("Starting reindex of {} (dimension {})", alias, dimension);
+        try {
+            CollectionLayout collectionLayout = layout != null ? CollectionLayout.from(layout) : milvusService.defaultLayout();
+            ReindexStatus status = reindexService.start(alias, dimension, collectionLayout, indexProfile);
+            return ResponseEntity.ok(status);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected reindex of {}: {}", alias, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            log.warn("Rejected reindex of {}: {}", alias, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("Failed to start reindex of {}: {}", alias, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PostMapping("/reindex/{alias}/complete")
+    public ResponseEntity<ReindexStatus> completeReindex(@PathVariable String alias) {
+        try {
+            ReindexStatus status = reindexService.complete(alias);
+            if ("FAILED".equals(status.getStatus())) {
+                return ResponseEntity.internalServerError().body(status);
+            }
+            return ResponseEntity.ok(status);
+        } catch (IllegalStateException e) {
+            log.warn("Cannot complete reindex of {}: {}", alias, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/reindex/{alias}")
+    public ResponseEntity<ReindexStatus> getReindex(@PathVariable String alias) {
+        return reindexService.status(alias)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/reindex/{alias}")
+    public ResponseEntity<ReindexStatus> abortReindex(@PathVariable String alias) {
+        try {
+            return ResponseEntity.ok(reindexService.abort(alias));
+        } catch (IllegalStateException e) {
+            log.warn("Cannot abort reindex of {}: {}", alias, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @PostMapping("/search")
+    public ResponseEntity<SearchResponse> search(@RequestBody SearchRequest request) {
+        try {
+            SearchResponse response = vectorSearchService.search(request);
+            log.debug("Search returned {} result lists in {}ms (cached: {})",
+                    response.getResults().size(), response.getTookMs(), response.isCached());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected search request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Search failed: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @DeleteMapping("/collection/{collectionName}")
     public ResponseEntity<String> dropCollection(@PathVariable String collectionName) {
         log.info("Dropping collection: {}", collectionName);
@@ -0,0 +1,59 @@
+package com.reposync.milvus.ingest;
+
+/**
+ * Batch size for Milvus writes, learned across requests: grows by a fixed step while batches
+ * finish within the target latency and halves when one is slow or throttled. The size is also
+ * capped so a batch stays under the target payload in bytes.
+ */
+public class AimdBatchSizer {
+
+    private final int minSize;
+    private final int maxSize;
+    private final int step;
+    private final long targetLatencyNanos;
+    private final long targetBytes;
+
+    private int size;
+
+    public AimdBatchSizer(int initialSize, int minSize, int maxSize, int step,
+                          long targetLatencyNanos, long targetBytes) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid batch size bounds: min=" + minSize + ", max=" + maxSize);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.step = step;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.targetBytes = targetBytes;
+        this.size = clamp(initialSize);
+    }
+
+    /**
+     * Vectors to put in the next batch when each takes about bytesPerVector on the wire.
+     */
+    public synchronized int next(long bytesPerVector) {
+        long byteCap = Math.max(1, targetBytes / Math.max(1, bytesPerVector));
+        return (int) Math.max(minSize, Math.min(size, byteCap));
+    }
+
+    public synchronized void onSuccess(int batchSize, long latencyNanos) {
+        if (latencyNanos > targetLatencyNanos) {
+            size = clamp(size / 2);
+        } else if (batchSize >= size) {
+            // Only grow when the batch was actually as large as the current limit
+            size = clamp(size + step);
+        }
+    }
+
+    public synchronized void onThrottled() {
+        size = clamp(size / 2);
+    }
+
+    public synchronized int current() {
+        return size;
+    }
+
+    private int clamp(int value) {
+        return Math.max(minSize, Math.min(maxSize, value));
+    }
+}
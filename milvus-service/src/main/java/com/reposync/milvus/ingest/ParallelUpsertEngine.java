@@ -0,0 +1,253 @@
+package com.reposync.milvus.ingest;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.milvus.config.MilvusUpsertProperties;
+import io.grpc.Status;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.MutationResult;
+import io.milvus.param.R;
+import io.milvus.param.dml.UpsertParam;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Writes vectors to Milvus with several upsertAsync calls in flight at once. Batch sizes come
+ * from {@link AimdBatchSizer}; a throttled batch halves the size and pauses all new batches
+ * for an exponentially growing backoff before it is retried.
+ */
+@Slf4j
+@Component
+public class ParallelUpsertEngine {
+
+    private final MilvusClient milvusClient;
+    private final MilvusUpsertProperties properties;
+    private final AimdBatchSizer batchSizer;
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "milvus-upsert-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Shared by all callers: no new batch is sent before this (System.nanoTime) after throttling
+    private final AtomicLong pausedUntil = new AtomicLong();
+
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter throttledCounter;
+
+    public ParallelUpsertEngine(MilvusClient milvusClient, MilvusUpsertProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.milvusClient = milvusClient;
+        this.properties = properties;
+        this.batchSizer = new AimdBatchSizer(properties.getInitialBatchSize(), properties.getMinBatchSize(),
+                properties.getMaxBatchSize(), properties.getBatchSizeStep(),
+                properties.getTargetLatency().toNanos(), properties.getTargetBatchBytes());
+        this.successTimer = Timer.builder("milvus.upsert.batch")
+                .description("Milvus upsert batch latency")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failureTimer = Timer.builder("milvus.upsert.batch")
+                .description("Milvus upsert batch latency")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.throttledCounter = Counter.builder("milvus.upsert.throttled")
+                .description("Milvus upsert batches rejected by rate limits or quotas")
+                .register(meterRegistry);
+        Gauge.builder("milvus.upsert.batch.size", batchSizer, AimdBatchSizer::current)
+                .description("Current adaptive upsert batch size")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+    }
+
+    /**
+     * Upserts all vectors and returns how many were written. Batches that still fail after
+     * max-attempts are logged and left out, as the sequential path did.
+     *
+     * @param paramBuilder builds the upsert request for one batch
+     * @throws IllegalArgumentException when the request for a batch could not be built; the
+     *                                  other batches are still written
+     */
+    public int upsert(List<EmbeddingVector> vectors, Function<List<EmbeddingVector>, UpsertParam> paramBuilder) {
+        if (vectors.isEmpty()) {
+            return 0;
+        }
+        long bytesPerVector = estimateBytesPerVector(vectors);
+        Semaphore slots = new Semaphore(properties.getMaxInFlight());
+        AtomicInteger written = new AtomicInteger();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        long start = System.nanoTime();
+        Throwable buildFailure = null;
+
+        try {
+            int position = 0;
+            while (position < vectors.size()) {
+                slots.acquire();
+                awaitBackoff();
+                int size = batchSizer.next(bytesPerVector);
+                List<EmbeddingVector> batch = vectors.subList(position, Math.min(vectors.size(), position + size));
+                position += batch.size();
+
+                CompletableFuture<Void> done = new CompletableFuture<>();
+                done.whenComplete((ignored, error) -> slots.release());
+                batches.add(done);
+                send(batch, paramBuilder, 1, written, done);
+            }
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            // Only batches whose request could not be built complete exceptionally
+            buildFailure = e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while upserting vectors", e);
+        }
+
+        log.info("Upserted {}/{} vectors in {} batches ({}ms, batch size now {})", written.get(), vectors.size(),
+                batches.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), batchSizer.current());
+        if (buildFailure != null) {
+            throw new IllegalArgumentException("Could not build upsert request: " + buildFailure.getMessage(), buildFailure);
+        }
+        return written.get();
+    }
+
+    private void send(List<EmbeddingVector> batch, Function<List<EmbeddingVector>, UpsertParam> paramBuilder,
+                      int attempt, AtomicInteger written, CompletableFuture<Void> done) {
+        long start = System.nanoTime();
+        try {
+            Futures.addCallback(milvusClient.upsertAsync(paramBuilder.apply(batch)), new FutureCallback<>() {
+                @Override
+                public void onSuccess(R<MutationResult> response) {
+                    long latency = System.nanoTime() - start;
+                    if (response.getStatus() == R.Status.Success.getCode()) {
+                        successTimer.record(latency, TimeUnit.NANOSECONDS);
+                        batchSizer.onSuccess(batch.size(), latency);
+                        written.addAndGet(batch.size());
+                        log.debug("✅ Upserted batch of {} vectors in {}ms", batch.size(),
+                                TimeUnit.NANOSECONDS.toMillis(latency));
+                        done.complete(null);
+                    } else {
+                        String message = message(response);
+                        onFailure(message, isThrottleMessage(message), latency);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                    onFailure(error.getMessage(), isThrottle(error), System.nanoTime() - start);
+                }
+
+                private void onFailure(String message, boolean throttled, long latency) {
+                    failureTimer.record(latency, TimeUnit.NANOSECONDS);
+                    if (throttled) {
+                        throttledCounter.increment();
+                        batchSizer.onThrottled();
+                    }
+                    retryOrGiveUp(batch, paramBuilder, attempt, written, done, message, throttled);
+                }
+            }, MoreExecutors.directExecutor());
+        } catch (RuntimeException e) {
+            // Building the request failed; retrying will not help
+            log.error("❌ Could not build upsert for batch of {} vectors: {}", batch.size(), e.getMessage(), e);
+            done.completeExceptionally(e);
+        }
+    }
+
+    private void retryOrGiveUp(List<EmbeddingVector> batch, Function<List<EmbeddingVector>, UpsertParam> paramBuilder,
+                               int attempt, AtomicInteger written, CompletableFuture<Void> done,
+                               String message, boolean throttled) {
+        if (attempt >= properties.getMaxAttempts()) {
+            log.error("❌ Batch of {} vectors failed after {} attempts: {}", batch.size(), attempt, message);
+            done.complete(null);
+            return;
+        }
+        long delay = backoffNanos(attempt);
+        if (throttled) {
+            pausedUntil.accumulateAndGet(System.nanoTime() + delay, Math::max);
+        }
+        log.warn("Upsert of {} vectors failed (attempt {}/{}{}), retrying in {}ms: {}", batch.size(), attempt,
+                properties.getMaxAttempts(), throttled ? ", throttled" : "", TimeUnit.NANOSECONDS.toMillis(delay), message);
+        retryScheduler.schedule(() -> send(batch, paramBuilder, attempt + 1, written, done), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void awaitBackoff() throws InterruptedException {
+        long wait = pausedUntil.get() - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Exponential backoff with full jitter between initial-backoff and max-backoff.
+     */
+    private long backoffNanos(int attempt) {
+        long initial = properties.getInitialBackoff().toNanos();
+        long max = properties.getMaxBackoff().toNanos();
+        long ceiling = Math.min(max, initial << Math.min(attempt - 1, 20));
+        return initial + ThreadLocalRandom.current().nextLong(Math.max(1, ceiling - initial + 1));
+    }
+
+    private static long estimateBytesPerVector(List<EmbeddingVector> vectors) {
+        EmbeddingVector sample = vectors.get(0);
+        long bytes = (long) sample.getVector().length * Float.BYTES + sample.getId().length() + 16;
+        Map<String, String> metadata = sample.getMetadata();
+        if (metadata != null) {
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                bytes += entry.getKey().length() + (entry.getValue() != null ? entry.getValue().length() : 0) + 8;
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean isThrottle(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (Status.fromThrowable(cause).getCode() == Status.Code.RESOURCE_EXHAUSTED
+                    || isThrottleMessage(cause.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isThrottleMessage(String message) {
+        if (message == null) {
+            return false;
+        }
+        String lower = message.toLowerCase();
+        return lower.contains("rate limit") || lower.contains("ratelimit") || lower.contains("too many requests")
+                || lower.contains("quota");
+    }
+
+    /**
+     * The SDK's getMessage() throws when a failed response carries no exception.
+     */
+    private static String message(R<?> response) {
+        if (response.getException() != null) {
+            return response.getException().getMessage();
+        }
+        return "Status code: " + response.getStatus();
+    }
+}
@@ -0,0 +1,11 @@
+package com.reposync.milvus.service;
+
+import java.util.List;
+
+/**
+ * Outcome of one bulk import; rowsPerSecond covers upload and import together.
+ */
+public record BulkInsertResult(String collectionName, int files, long rows, long importedRows,
+                               long bytesUploaded, long uploadMs, long importMs, double rowsPerSecond,
+                               List<Long> taskIds, List<String> failures) {
+}
@@ -0,0 +1,303 @@
+package com.reposync.milvus.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.util.VectorQuantizer;
+import com.reposync.milvus.config.MilvusBulkInsertProperties;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.GetImportStateResponse;
+import io.milvus.grpc.ImportResponse;
+import io.milvus.grpc.ImportState;
+import io.milvus.param.R;
+import io.milvus.param.bulkinsert.BulkInsertParam;
+import io.milvus.param.bulkinsert.GetBulkInsertStateParam;
+import io.milvus.response.BulkInsertResponseWrapper;
+import io.milvus.response.GetBulkInsertStateWrapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.minio.BucketExistsArgs;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectArgs;
+import io.minio.UploadObjectArgs;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads vectors with Milvus bulkInsert: rows are written to row-based JSON files, uploaded to
+ * the bucket Milvus reads from, and imported server-side, one task per file. A file's import
+ * starts as soon as it is uploaded, so writing the next file overlaps with Milvus importing the
+ * previous one. Import inserts rows without replacing existing primary keys, so this is meant
+ * for empty collections: initial loads and reindex targets.
+ */
+@Slf4j
+@Service
+public class BulkInsertService {
+
+    private final MilvusClient milvusClient;
+    private final MilvusService milvusService;
+    private final MilvusBulkInsertProperties properties;
+    private final CollectionMetadataCache metadataCache;
+    private final VectorSearchService searchService;
+    private final JsonFactory jsonFactory;
+    private final MinioClient minioClient;
+    private final Timer uploadTimer;
+    private final Timer importTimer;
+    private final Counter importedRows;
+
+    public BulkInsertService(MilvusClient milvusClient, MilvusService milvusService,
+                             MilvusBulkInsertProperties properties,
+                             CollectionMetadataCache metadataCache, VectorSearchService searchService,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.milvusClient = milvusClient;
+        this.milvusService = milvusService;
+        this.properties = properties;
+        this.metadataCache = metadataCache;
+        this.searchService = searchService;
+        this.jsonFactory = objectMapper.getFactory();
+        this.minioClient = properties.isEnabled()
+                ? MinioClient.builder()
+                        .endpoint(properties.getEndpoint())
+                        .credentials(properties.getAccessKey(), properties.getSecretKey())
+                        .build()
+                : null;
+        this.uploadTimer = Timer.builder("milvus.bulk_insert.phase")
+                .description("Bulk insert time per phase")
+                .tag("phase", "upload")
+                .register(meterRegistry);
+        this.importTimer = Timer.builder("milvus.bulk_insert.phase")
+                .description("Bulk insert time per phase")
+                .tag("phase", "import")
+                .register(meterRegistry);
+        this.importedRows = Counter.builder("milvus.bulk_insert.rows")
+                .description("Rows imported through bulk insert")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public BulkInsertResult importVectors(String collectionName, List<EmbeddingVector> input) {
+        if (!properties.isEnabled()) {
+            throw new IllegalStateException("Bulk insert is disabled (milvus.bulk-insert.enabled)");
+        }
+        List<EmbeddingVector> vectors = input == null ? List.of() : input.stream()
+                .map(VectorQuantizer::decode)
+                .filter(v -> v != null && v.getId() != null && v.getVector() != null && v.getVector().length > 0)
+                .toList();
+        if (vectors.isEmpty()) {
+            throw new IllegalArgumentException("No valid vectors to import");
+        }
+        int dimension = vectors.get(0).getVector().length;
+        if (vectors.stream().anyMatch(v -> v.getVector().length != dimension)) {
+            throw new IllegalArgumentException("All vectors of a bulk import must have dimension " + dimension);
+        }
+
+        milvusService.createCollection(collectionName, dimension);
+        CollectionDescriptor descriptor = metadataCache.describe(collectionName)
+                .orElseThrow(() -> new IllegalStateException("Collection " + collectionName + " was not created"));
+        int version = CollectionSchema.version(descriptor);
+        checkBucket();
+
+        long start = System.nanoTime();
+        String batchPrefix = properties.getPrefix() + "/" + collectionName + "/" + UUID.randomUUID();
+        Map<Long, String> tasks = new LinkedHashMap<>();
+        long bytesUploaded = 0;
+        long uploadNanos = 0;
+        try {
+            for (int from = 0, file = 0; from < vectors.size(); from += properties.getRowsPerFile(), file++) {
+                List<EmbeddingVector> rows = vectors.subList(from, Math.min(vectors.size(), from + properties.getRowsPerFile()));
+                String objectName = String.format("%s/part-%05d.json", batchPrefix, file);
+
+                long uploadStart = System.nanoTime();
+                bytesUploaded += writeAndUpload(rows, version, objectName);
+                uploadNanos += System.nanoTime() - uploadStart;
+
+                tasks.put(submit(collectionName, objectName), objectName);
+                log.info("Uploaded {} ({} rows) and queued its import into {}", objectName, rows.size(), collectionName);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Writing bulk insert files failed: " + e.getMessage(), e);
+        }
+        uploadTimer.record(uploadNanos, TimeUnit.NANOSECONDS);
+
+        long importStart = System.nanoTime();
+        List<String> failures = new ArrayList<>();
+        long imported = awaitTasks(tasks, descriptor.indexed(), failures);
+        long importNanos = System.nanoTime() - importStart;
+        importTimer.record(importNanos, TimeUnit.NANOSECONDS);
+        importedRows.increment(imported);
+
+        if (properties.isDeleteFilesAfterImport()) {
+            tasks.values().forEach(this::deleteQuietly);
+        }
+        metadataCache.invalidate(collectionName);
+        searchService.invalidate(collectionName);
+
+        long totalNanos = System.nanoTime() - start;
+        double rowsPerSecond = imported / Math.max(1e-9, totalNanos / 1e9);
+        BulkInsertResult result = new BulkInsertResult(collectionName, tasks.size(), vectors.size(), imported,
+                bytesUploaded, TimeUnit.NANOSECONDS.toMillis(uploadNanos), TimeUnit.NANOSECONDS.toMillis(importNanos),
+                Math.round(rowsPerSecond * 10) / 10.0, List.copyOf(tasks.keySet()), failures);
+        if (failures.isEmpty()) {
+            log.info("✅ Bulk inserted {} rows into {} from {} files ({} MB) at {} rows/s", imported, collectionName,
+                    tasks.size(), bytesUploaded / (1024 * 1024), result.rowsPerSecond());
+        } else {
+            log.error("❌ Bulk insert into {} imported {}/{} rows; failures: {}", collectionName, imported,
+                    vectors.size(), failures);
+        }
+        return result;
+    }
+
+    /**
+     * Writes rows in Milvus' row-based JSON import format ({"rows": [...]}) to a temp file and
+     * uploads it. Returns the file size.
+     */
+    private long writeAndUpload(List<EmbeddingVector> rows, int version, String objectName) throws IOException {
+        Path file = Files.createTempFile("milvus-bulk-", ".json");
+        try {
+            try (JsonGenerator json = jsonFactory.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("rows");
+                for (EmbeddingVector row : rows) {
+                    json.writeStartObject();
+                    json.writeStringField(MilvusService.ID_FIELD, row.getId());
+                    json.writeArrayFieldStart(MilvusService.VECTOR_FIELD);
+                    for (float value : row.getVector()) {
+                        json.writeNumber(value);
+                    }
+                    json.writeEndArray();
+                    json.writeObjectFieldStart(MilvusService.METADATA_FIELD);
+                    if (row.getMetadata() != null) {
+                        for (Map.Entry<String, String> entry : row.getMetadata().entrySet()) {
+                            if (entry.getKey() != null) {
+                                json.writeStringField(entry.getKey(), entry.getValue() != null ? entry.getValue() : "");
+                            }
+                        }
+                    }
+                    json.writeEndObject();
+                    if (version >= CollectionSchema.SCALAR_FIELDS_VERSION) {
+                        for (String key : CollectionSchema.SCALAR_FIELDS.keySet()) {
+                            json.writeStringField(key, CollectionSchema.scalarValue(row.getMetadata(), key));
+                        }
+                    }
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+
+            minioClient.uploadObject(UploadObjectArgs.builder()
+                    .bucket(properties.getBucket())
+                    .object(objectName)
+                    .filename(file.toString())
+                    .contentType("application/json")
+                    .build());
+            return Files.size(file);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Uploading " + objectName + " failed: " + e.getMessage(), e);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private long submit(String collectionName, String objectName) {
+        R<ImportResponse> response = milvusClient.bulkInsert(BulkInsertParam.newBuilder()
+                .withCollectionName(collectionName)
+                .addFile(objectName)
+                .build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("bulkInsert of " + objectName + " failed: " + message(response));
+        }
+        return new BulkInsertResponseWrapper(response.getData()).getTaskID();
+    }
+
+    /**
+     * Polls the import tasks until each has finished or the timeout passed and returns the rows
+     * imported. A collection without an index is done once the data is persisted; with an index
+     * Milvus also waits for it to be built.
+     */
+    private long awaitTasks(Map<Long, String> tasks, boolean indexed, List<String> failures) {
+        Map<Long, String> pending = new LinkedHashMap<>(tasks);
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+        long imported = 0;
+        try {
+            while (!pending.isEmpty()) {
+                for (Long taskId : new ArrayList<>(pending.keySet())) {
+                    R<GetImportStateResponse> response = milvusClient.getBulkInsertState(
+                            GetBulkInsertStateParam.newBuilder().withTask(taskId).build());
+                    if (response.getStatus() != R.Status.Success.getCode()) {
+                        log.warn("Could not read state of import task {}: {}", taskId, message(response));
+                        continue;
+                    }
+                    GetBulkInsertStateWrapper state = new GetBulkInsertStateWrapper(response.getData());
+                    ImportState importState = state.getState();
+                    if (importState == ImportState.ImportCompleted
+                            || (!indexed && importState == ImportState.ImportPersisted)) {
+                        imported += state.getImportedCount();
+                        pending.remove(taskId);
+                    } else if (importState == ImportState.ImportFailed || importState == ImportState.ImportFailedAndCleaned) {
+                        failures.add(pending.remove(taskId) + ": " + state.getFailedReason());
+                    } else {
+                        log.debug("Import task {} ({}): {} ({}%)", taskId, pending.get(taskId), importState, state.getProgress());
+                    }
+                }
+                if (pending.isEmpty()) {
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    pending.forEach((taskId, file) -> failures.add(file + ": not finished within " + properties.getTimeout()));
+                    break;
+                }
+                TimeUnit.MILLISECONDS.sleep(properties.getPollInterval().toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for bulk insert tasks", e);
+        }
+        return imported;
+    }
+
+    private void checkBucket() {
+        try {
+            if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(properties.getBucket()).build())) {
+                throw new IllegalStateException("Bucket " + properties.getBucket() + " does not exist; it must be the bucket Milvus uses");
+            }
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Object storage at " + properties.getEndpoint() + " is not reachable: " + e.getMessage(), e);
+        }
+    }
+
+    private void deleteQuietly(String objectName) {
+        try {
+            minioClient.removeObject(RemoveObjectArgs.builder().bucket(properties.getBucket()).object(objectName).build());
+        } catch (Exception e) {
+            log.warn("Could not delete bulk insert file {}: {}", objectName, e.getMessage());
+        }
+    }
+
+    private static String message(R<?> response) {
+        if (response.getException() != null) {
+            return response.getException().getMessage();
+        }
+        return "Status code: " + response.getStatus();
+    }
+}
@@ -0,0 +1,22 @@
+package com.reposync.milvus.service;
+
+import java.util.List;
+
+/**
+ * What milvus-service needs to know about an existing collection before writing to it.
+ *
+ * @param dimension    vector field dimension, or 0 when the collection has no float vector field
+ * @param partitionKey name of the partition key field, or null for a flat collection
+ * @param indexType    index type of the vector field (HNSW, AUTOINDEX, ...), or null when not indexed
+ */
+public record CollectionDescriptor(String name, int dimension, List<String> fields, String partitionKey,
+                                   String indexType, boolean loaded) {
+
+    public boolean indexed() {
+        return indexType != null;
+    }
+
+    public CollectionLayout layout() {
+        return partitionKey != null ? CollectionLayout.PARTITION_KEY : CollectionLayout.FLAT;
+    }
+}
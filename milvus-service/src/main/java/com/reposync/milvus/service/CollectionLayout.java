@@ -0,0 +1,32 @@
+package com.reposync.milvus.service;
+
+import java.util.Locale;
+
+/**
+ * How rows of a collection are spread over partitions, chosen when the collection is created.
+ */
+public enum CollectionLayout {
+
+    /**
+     * One default partition; every repository-scoped operation touches all segments.
+     */
+    FLAT,
+
+    /**
+     * The repository field is the partition key: Milvus hashes each repository into one of a fixed
+     * number of partitions, and upserts, queries and searches with a repository == "..." filter
+     * only touch that partition.
+     */
+    PARTITION_KEY;
+
+    /**
+     * Parses flat, partition-key or partition_key, case-insensitively.
+     */
+    public static CollectionLayout from(String value) {
+        try {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown collection layout: " + value);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.reposync.milvus.service;
+
+import com.reposync.common.util.TtlLruCache;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.DescribeCollectionResponse;
+import io.milvus.grpc.DescribeIndexResponse;
+import io.milvus.grpc.GetLoadStateResponse;
+import io.milvus.grpc.KeyValuePair;
+import io.milvus.grpc.LoadState;
+import io.milvus.param.R;
+import io.milvus.param.collection.DescribeCollectionParam;
+import io.milvus.param.collection.FieldType;
+import io.milvus.param.collection.GetLoadStateParam;
+import io.milvus.param.collection.HasCollectionParam;
+import io.milvus.param.index.DescribeIndexParam;
+import io.milvus.response.DescCollResponseWrapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Caches what each collection looks like (schema, vector dimension, index type and load state) so
+ * writes don't pay hasCollection/describe RPCs every time. Entries expire after the TTL and are
+ * dropped explicitly whenever this service creates, drops, indexes or loads a collection.
+ * Missing collections are not cached, so one created elsewhere is seen on the next call.
+ */
+@Slf4j
+@Component
+public class CollectionMetadataCache {
+
+    private final MilvusClient milvusClient;
+    private final TtlLruCache<String, CollectionDescriptor> cache;
+
+    public CollectionMetadataCache(MilvusClient milvusClient,
+                                   @Value("${milvus.metadata-cache.ttl:5m}") Duration ttl,
+                                   @Value("${milvus.metadata-cache.max-size:256}") int maxSize,
+                                   MeterRegistry meterRegistry) {
+        this.milvusClient = milvusClient;
+        this.cache = new TtlLruCache<>(maxSize, ttl);
+        FunctionCounter.builder("milvus.metadata.cache", cache, TtlLruCache::hitCount)
+                .description("Collection metadata lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("milvus.metadata.cache", cache, TtlLruCache::missCount)
+                .description("Collection metadata lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The collection's descriptor, or empty when it does not exist.
+     */
+    public Optional<CollectionDescriptor> describe(String collectionName) {
+        return Optional.ofNullable(cache.get(collectionName, this::load));
+    }
+
+    public boolean exists(String collectionName) {
+        return describe(collectionName).isPresent();
+    }
+
+    /**
+     * Fails fast when vectors of the given dimension cannot go into the collection.
+     */
+    public void validateDimension(String collectionName, int dimension) {
+        describe(collectionName).ifPresent(descriptor -> {
+            if (descriptor.dimension() > 0 && descriptor.dimension() != dimension) {
+                throw new IllegalArgumentException(String.format(
+                        "Vector dimension %d does not match collection %s (dimension %d)",
+                        dimension, collectionName, descriptor.dimension()));
+            }
+        });
+    }
+
+    public void invalidate(String collectionName) {
+        cache.invalidate(collectionName);
+    }
+
+    private CollectionDescriptor load(String collectionName) {
+        R<Boolean> exists = milvusClient.hasCollection(HasCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        check(exists, "hasCollection", collectionName);
+        if (!Boolean.TRUE.equals(exists.getData())) {
+            return null;
+        }
+
+        R<DescribeCollectionResponse> described = milvusClient.describeCollection(DescribeCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        check(described, "describeCollection", collectionName);
+        List<FieldType> fields = new DescCollResponseWrapper(described.getData()).getFields();
+        FieldType vectorField = fields.stream()
+                .filter(field -> field.getDataType() == DataType.FloatVector)
+                .findFirst()
+                .orElse(null);
+
+        String indexType = null;
+        if (vectorField != null) {
+            R<DescribeIndexResponse> index = milvusClient.describeIndex(DescribeIndexParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .build());
+            // Milvus reports a collection without any index as an error status
+            String vectorFieldName = vectorField.getName();
+            if (index.getStatus() == R.Status.Success.getCode()) {
+                indexType = index.getData().getIndexDescriptionsList().stream()
+                        .filter(description -> vectorFieldName.equals(description.getFieldName()))
+                        .findFirst()
+                        .map(description -> description.getParamsList().stream()
+                                .filter(param -> "index_type".equals(param.getKey()))
+                                .map(KeyValuePair::getValue)
+                                .findFirst()
+                                .orElse("UNKNOWN"))
+                        .orElse(null);
+            }
+        }
+
+        R<GetLoadStateResponse> loadState = milvusClient.getLoadState(GetLoadStateParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        boolean loaded = loadState.getStatus() == R.Status.Success.getCode()
+                && loadState.getData().getState() == LoadState.LoadStateLoaded;
+
+        String partitionKey = fields.stream()
+                .filter(FieldType::isPartitionKey)
+                .map(FieldType::getName)
+                .findFirst()
+                .orElse(null);
+
+        CollectionDescriptor descriptor = new CollectionDescriptor(collectionName,
+                vectorField != null ? vectorField.getDimension() : 0,
+                fields.stream().map(FieldType::getName).toList(),
+                partitionKey, indexType, loaded);
+        log.debug("Cached metadata for collection {}: {}", collectionName, descriptor);
+        return descriptor;
+    }
+
+    private static void check(R<?> response, String operation, String collectionName) {
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            String message = response.getException() != null
+                    ? response.getException().getMessage() : "Status code: " + response.getStatus();
+            throw new RuntimeException(operation + " failed for " + collectionName + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.reposync.milvus.service;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.protobuf.ByteString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collection layouts. Version 1 keeps all chunk metadata in the JSON field; version 2 also
+ * stores the keys that are filtered and deleted by (repository, file path, file type and the
+ * content sha) as VarChar fields with scalar indexes, so those expressions are index lookups
+ * instead of parsing JSON on every row. The JSON field still holds the full metadata.
+ */
+final class CollectionSchema {
+
+    static final int LEGACY_VERSION = 1;
+    static final int SCALAR_FIELDS_VERSION = 2;
+
+    /**
+     * Promoted metadata keys and the max length of their VarChar fields.
+     */
+    static final Map<String, Integer> SCALAR_FIELDS = scalarFields();
+
+    /**
+     * Scalar field used as the partition key in the partition-key layout.
+     */
+    static final String PARTITION_KEY_FIELD = "repository";
+
+    private static final Pattern METADATA_KEY = Pattern.compile(
+            Pattern.quote(MilvusService.METADATA_FIELD) + "\\[\\s*\"([A-Za-z0-9_]+)\"\\s*]");
+
+    private CollectionSchema() {
+    }
+
+    static int version(CollectionDescriptor descriptor) {
+        return descriptor.fields().containsAll(SCALAR_FIELDS.keySet()) ? SCALAR_FIELDS_VERSION : LEGACY_VERSION;
+    }
+
+    /**
+     * The expression that reads a metadata key in a collection of the given version.
+     */
+    static String field(int version, String key) {
+        if (version >= SCALAR_FIELDS_VERSION && SCALAR_FIELDS.containsKey(key)) {
+            return key;
+        }
+        return MilvusService.METADATA_FIELD + "[\"" + key + "\"]";
+    }
+
+    /**
+     * Rewrites metadata["key"] references to promoted keys into their scalar fields, so filters
+     * written against the JSON layout use the scalar indexes.
+     */
+    static String rewriteFilter(int version, String filter) {
+        if (filter == null || version < SCALAR_FIELDS_VERSION) {
+            return filter;
+        }
+        Matcher matcher = METADATA_KEY.matcher(filter);
+        StringBuilder rewritten = new StringBuilder();
+        while (matcher.find()) {
+            matcher.appendReplacement(rewritten, Matcher.quoteReplacement(field(version, matcher.group(1))));
+        }
+        matcher.appendTail(rewritten);
+        return rewritten.toString();
+    }
+
+    /**
+     * Value for a promoted field: empty when missing and cut to the field's max length.
+     */
+    static String scalarValue(Map<String, String> metadata, String key) {
+        String value = metadata != null ? metadata.get(key) : null;
+        if (value == null) {
+            return "";
+        }
+        int maxLength = SCALAR_FIELDS.get(key);
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    /**
+     * Parses a JSON metadata field read back from Milvus. The SDK hands JSON fields back as raw
+     * bytes or strings depending on the path taken.
+     */
+    static Map<String, String> metadata(Object value) {
+        if (value == null) {
+            return Map.of();
+        }
+        String json;
+        if (value instanceof ByteString bytes) {
+            json = bytes.toStringUtf8();
+        } else if (value instanceof byte[] bytes) {
+            json = new String(bytes, StandardCharsets.UTF_8);
+        } else {
+            json = value.toString();
+        }
+        JsonElement element = JsonParser.parseString(json);
+        if (!element.isJsonObject()) {
+            return Map.of();
+        }
+        JsonObject object = element.getAsJsonObject();
+        Map<String, String> metadata = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            JsonElement field = entry.getValue();
+            metadata.put(entry.getKey(), field.isJsonPrimitive() ? field.getAsString() : field.toString());
+        }
+        return metadata;
+    }
+
+    private static Map<String, Integer> scalarFields() {
+        Map<String, Integer> fields = new LinkedHashMap<>();
+        fields.put("repository", 512);
+        fields.put("file_path", 2048);
+        fields.put("file_type", 64);
+        fields.put("sha", 64);
+        return Collections.unmodifiableMap(fields);
+    }
+}
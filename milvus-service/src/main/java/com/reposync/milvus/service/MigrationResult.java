@@ -0,0 +1,10 @@
+package com.reposync.milvus.service;
+
+/**
+ * Outcome of copying one collection into another with the current schema.
+ *
+ * @param sourceRows rows counted in the source when the copy finished
+ */
+public record MigrationResult(String sourceCollection, String targetCollection, int schemaVersion,
+                              long sourceRows, long copiedRows, long durationMs) {
+}
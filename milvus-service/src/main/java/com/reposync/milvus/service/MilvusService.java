@@ -1,19 +1,34 @@
 package com.reposync.milvus.service;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.reposync.common.dto.DocumentChunkIds;
 import com.reposync.common.dto.EmbeddingVector;
-import io.milvus.client.MilvusServiceClient;
+import com.reposync.common.dto.IndexProfile;
+import com.reposync.common.util.FloatVectors;
+import com.reposync.common.util.VectorQuantizer;
+import com.reposync.milvus.config.MilvusIndexProperties;
+import com.reposync.milvus.config.MilvusSearchProperties;
+import com.reposync.milvus.config.MilvusUpsertProperties;
+import com.reposync.milvus.ingest.ParallelUpsertEngine;
+import io.milvus.client.MilvusClient;
 import io.milvus.grpc.DataType;
 import io.milvus.param.R;
 import io.milvus.param.RpcStatus;
 import io.milvus.param.collection.*;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
+import io.milvus.param.dml.DeleteParam;
 import io.milvus.param.dml.InsertParam;
+import io.milvus.param.dml.QueryParam;
+import io.milvus.param.dml.UpsertParam;
+import io.milvus.response.QueryResultsWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -21,43 +36,84 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MilvusService {
 
-    private final MilvusServiceClient milvusClient;
+    private final MilvusClient milvusClient;
+    private final ParallelUpsertEngine upsertEngine;
+    private final MilvusUpsertProperties upsertProperties;
+    private final MilvusIndexProperties indexProperties;
+    private final MilvusSearchProperties searchProperties;
+    private final CollectionMetadataCache metadataCache;
+    private final VectorSearchService searchService;
 
     @Value("${milvus.collection-name}")
     private String defaultCollectionName;
 
-    private static final String ID_FIELD = "id";
-    private static final String VECTOR_FIELD = "vector";
-    private static final String METADATA_FIELD = "metadata";
+    // Layout for new collections: 2 promotes hot metadata keys to indexed VarChar fields, 1 is JSON only
+    @Value("${milvus.schema-version:2}")
+    private int schemaVersion;
+
+    // Default layout for new collections (flat or partition-key); create and migrate can override it
+    @Value("${milvus.layout:flat}")
+    private String defaultLayout;
+
+    // Hash buckets repositories are spread over in the partition-key layout
+    @Value("${milvus.partition-key.partitions:64}")
+    private int partitionKeyPartitions;
+
+    // Collections created without index and load; they cannot be queried until indexAndLoad
+    private final Set<String> unloadedBuilds = ConcurrentHashMap.newKeySet();
+
+    // Index profiles chosen explicitly at creation, applied when the collection is indexed
+    private final Map<String, String> requestedIndexProfiles = new ConcurrentHashMap<>();
+
+    static final String ID_FIELD = "id";
+    static final String VECTOR_FIELD = "vector";
+    static final String METADATA_FIELD = "metadata";
 
     public void createCollection(String collectionName, int dimension) {
+        createCollection(collectionName, dimension, defaultLayout());
+    }
+
+    public CollectionLayout defaultLayout() {
+        return CollectionLayout.from(defaultLayout);
+    }
+
+    public void createCollection(String collectionName, int dimension, CollectionLayout layout) {
+        createCollection(collectionName, dimension, layout, true);
+    }
+
+    /**
+     * Creates the collection unless it exists. The layout only applies to a new collection; the
+     * partition-key layout always uses the scalar fields, since repository is the key.
+     *
+     * @param indexAndLoad false to leave the new collection unindexed and unloaded while it is
+     *                     bulk-filled; {@link #indexAndLoad} finishes it
+     */
+    public void createCollection(String collectionName, int dimension, CollectionLayout layout, boolean indexAndLoad) {
+        createCollection(collectionName, dimension, layout, null, indexAndLoad);
+    }
+
+    /**
+     * @param indexProfile name of the index profile to build, or null for the one configured for
+     *                     the collection (milvus.index.collections) or the default
+     */
+    public void createCollection(String collectionName, int dimension, CollectionLayout layout, String indexProfile,
+                                 boolean indexAndLoad) {
+        if (indexProfile != null) {
+            indexProperties.profile(indexProfile);  // Unknown names fail before anything is created
+        }
         try {
             log.info("=== Starting collection creation: {} with dimension {} ===", collectionName, dimension);
 
-            // First, test the connection by listing collections
-            try {
-                R<io.milvus.grpc.ShowCollectionsResponse> listResponse = milvusClient.showCollections(
-                        ShowCollectionsParam.newBuilder().build());
-                log.info("Milvus connection test - Status: {}, Collections count: {}",
-                        listResponse.getStatus(),
-                        listResponse.getData() != null ? listResponse.getData().getCollectionNamesCount() : 0);
-                if (listResponse.getStatus() != R.Status.Success.getCode()) {
-                    String errorMessage = getResponseMessage(listResponse);
-                    log.error("Milvus connection failed: {}", errorMessage);
-                    throw new RuntimeException("Cannot connect to Milvus: " + errorMessage);
-                }
-            } catch (Exception connEx) {
-                log.error("Milvus connection test failed: {}", connEx.getMessage(), connEx);
-                throw new RuntimeException("Milvus connection test failed: " + connEx.getMessage(), connEx);
-            }
-
-            // Check if collection already exists
+            // Check if collection already exists (served from the metadata cache when possible)
             if (hasCollection(collectionName)) {
                 log.info("Collection {} already exists, will use existing collection", collectionName);
+                metadataCache.validateDimension(collectionName, dimension);
                 return;
             }
 
-            log.info("Creating new collection {} with dimension {}", collectionName, dimension);
+            boolean partitionByRepository = layout == CollectionLayout.PARTITION_KEY;
+            boolean scalarFields = partitionByRepository || schemaVersion >= CollectionSchema.SCALAR_FIELDS_VERSION;
+            log.info("Creating new collection {} with dimension {} ({} layout)", collectionName, dimension, layout);
 
             // Define collection schema
             FieldType idField = FieldType.newBuilder()
@@ -80,13 +136,25 @@ public class MilvusService {
                     .withDataType(DataType.JSON)
                     .build();
 
-            CreateCollectionParam createCollectionParam = CreateCollectionParam.newBuilder()
+            CreateCollectionParam.Builder createCollectionBuilder = CreateCollectionParam.newBuilder()
                     .withCollectionName(collectionName)
                     .withDescription("RepoSync collection for storing document embeddings")
                     .addFieldType(idField)
                     .addFieldType(vectorField)
-                    .addFieldType(metadataField)
-                    .build();
+                    .addFieldType(metadataField);
+            if (scalarFields) {
+                CollectionSchema.SCALAR_FIELDS.forEach((name, maxLength) -> createCollectionBuilder.addFieldType(
+                        FieldType.newBuilder()
+                                .withName(name)
+                                .withDataType(DataType.VarChar)
+                                .withMaxLength(maxLength)
+                                .withPartitionKey(partitionByRepository && CollectionSchema.PARTITION_KEY_FIELD.equals(name))
+                                .build()));
+            }
+            if (partitionByRepository) {
+                createCollectionBuilder.withPartitionsNum(partitionKeyPartitions);
+            }
+            CreateCollectionParam createCollectionParam = createCollectionBuilder.build();
 
             log.debug("Sending createCollection request to Milvus...");
             R<RpcStatus> response = milvusClient.createCollection(createCollectionParam);
@@ -113,33 +181,70 @@ public class MilvusService {
             }
 
             log.info("Collection {} created successfully", collectionName);
+            if (indexProfile != null) {
+                requestedIndexProfiles.put(collectionName, indexProfile);
+            }
 
-            // Create index for vector field (required before loading on some Milvus versions)
-            createIndex(collectionName, dimension);
-
-            // Load collection into memory (may be automatic on Zilliz Cloud Serverless)
-            loadCollection(collectionName);
+            if (indexAndLoad) {
+                indexAndLoad(collectionName);
+            } else {
+                unloadedBuilds.add(collectionName);
+                // Pick up the new schema on the next lookup
+                metadataCache.invalidate(collectionName);
+            }
 
+        } catch (IllegalArgumentException e) {
+            log.error("Rejected collection {}: {}", collectionName, e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Error creating collection {}: {}", collectionName, e.getMessage(), e);
             throw new RuntimeException("Failed to create collection: " + e.getMessage(), e);
         }
     }
 
-    private void createIndex(String collectionName, int dimension) {
-        log.info("Creating index for collection {} on field {}", collectionName, VECTOR_FIELD);
+    /**
+     * Builds the vector index (and the scalar indexes when the collection has scalar fields) and
+     * loads the collection. Safe to call on a collection that is already indexed and loaded.
+     */
+    public void indexAndLoad(String collectionName) {
+        CollectionDescriptor descriptor = metadataCache.describe(collectionName)
+                .orElseThrow(() -> new IllegalArgumentException("Collection " + collectionName + " does not exist"));
+
+        // Create index for vector field (required before loading on some Milvus versions)
+        String profileName = requestedIndexProfiles.getOrDefault(collectionName, indexProperties.profileNameFor(collectionName));
+        createIndex(collectionName, profileName, indexProperties.profile(profileName));
+        if (CollectionSchema.version(descriptor) >= CollectionSchema.SCALAR_FIELDS_VERSION) {
+            createScalarIndexes(collectionName);
+        }
+
+        // Load collection into memory (may be automatic on Zilliz Cloud Serverless)
+        loadCollection(collectionName);
+        unloadedBuilds.remove(collectionName);
+        requestedIndexProfiles.remove(collectionName);
 
-        // Use AUTOINDEX for Zilliz Cloud compatibility
-        io.milvus.param.index.CreateIndexParam indexParam = io.milvus.param.index.CreateIndexParam.newBuilder()
+        // Pick up the new schema, index and load state on the next lookup
+        metadataCache.invalidate(collectionName);
+    }
+
+    private void createIndex(String collectionName, String profileName, IndexProfile profile) {
+        log.info("Creating {} index (profile {}) for collection {} on field {}",
+                profile.getIndexType(), profileName, collectionName, VECTOR_FIELD);
+
+        // AUTOINDEX (the default profile) is the only index type Zilliz Cloud accepts;
+        // the metric must be the one searches use
+        io.milvus.param.index.CreateIndexParam.Builder indexParamBuilder = io.milvus.param.index.CreateIndexParam.newBuilder()
                 .withCollectionName(collectionName)
                 .withFieldName(VECTOR_FIELD)
                 .withIndexName("vector_idx")
-                .withIndexType(io.milvus.param.IndexType.AUTOINDEX)
-                .withMetricType(io.milvus.param.MetricType.COSINE)
+                .withIndexType(io.milvus.param.IndexType.valueOf(profile.getIndexType().toUpperCase(Locale.ROOT)))
+                .withMetricType(io.milvus.param.MetricType.valueOf(searchProperties.getMetricType()))
                 .withSyncMode(Boolean.TRUE)  // Wait for index to be ready
                 .withSyncWaitingTimeout(120L)  // Wait up to 2 minutes
-                .withSyncWaitingInterval(500L)  // Check every 500ms
-                .build();
+                .withSyncWaitingInterval(500L);  // Check every 500ms
+        if (profile.getBuildParams() != null && !profile.getBuildParams().isEmpty()) {
+            indexParamBuilder.withExtraParam(new Gson().toJson(profile.getBuildParams()));
+        }
+        io.milvus.param.index.CreateIndexParam indexParam = indexParamBuilder.build();
 
         int maxRetries = 3;
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
@@ -185,6 +290,26 @@ public class MilvusService {
         log.warn("Index creation may have failed for {} - will attempt to load anyway", collectionName);
     }
 
+    /**
+     * Trie indexes on the promoted VarChar fields so equality filters and per-repository deletes
+     * do not scan the collection. A missing scalar index only costs speed, so failures are logged.
+     */
+    private void createScalarIndexes(String collectionName) {
+        for (String field : CollectionSchema.SCALAR_FIELDS.keySet()) {
+            R<RpcStatus> response = milvusClient.createIndex(io.milvus.param.index.CreateIndexParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .withFieldName(field)
+                    .withIndexName(field + "_idx")
+                    .withIndexType(io.milvus.param.IndexType.TRIE)
+                    .build());
+            if (response.getStatus() == R.Status.Success.getCode()) {
+                log.info("✅ Scalar index created on {}.{}", collectionName, field);
+            } else {
+                log.warn("Scalar index on {}.{} was not created: {}", collectionName, field, getResponseMessage(response));
+            }
+        }
+    }
+
     private void loadCollection(String collectionName) {
         log.info("Loading collection {} into memory", collectionName);
 
@@ -243,20 +368,31 @@ public class MilvusService {
         log.warn("Load collection may have failed for {} - Zilliz Cloud may auto-load on first use", collectionName);
     }
 
-    private static final int UPSERT_BATCH_SIZE = 50;  // Process vectors in smaller batches
     private static final int MAX_RETRIES = 3;
     private static final long RETRY_DELAY_MS = 2000;
+    private static final int DELETE_BATCH_SIZE = 500;  // Primary keys per delete expression
+    private static final long ID_QUERY_LIMIT = 16384L;  // Milvus caps query results at 16384
+    private static final long MIGRATION_PAGE_SIZE = 1000L;
 
     public void upsertVectors(String collectionName, List<EmbeddingVector> vectors) {
+        upsertVectors(collectionName, vectors, false);
+    }
+
+    /**
+     * @param requireAll fail when some batches could not be written after retries, instead of
+     *                   logging and leaving them out, so the caller can retry the whole request
+     */
+    public void upsertVectors(String collectionName, List<EmbeddingVector> vectors, boolean requireAll) {
         try {
             if (vectors == null || vectors.isEmpty()) {
                 log.warn("No vectors to upsert");
                 return;
             }
 
-            // Filter out any vectors with null IDs or vectors
+            // Restore float32 for quantized vectors, then filter out any with null IDs or vectors
             List<EmbeddingVector> validVectors = vectors.stream()
-                    .filter(v -> v != null && v.getId() != null && v.getVector() != null && !v.getVector().isEmpty())
+                    .map(VectorQuantizer::decode)
+                    .filter(v -> v != null && v.getId() != null && v.getVector() != null && v.getVector().length > 0)
                     .collect(Collectors.toList());
 
             if (validVectors.isEmpty()) {
@@ -272,42 +408,44 @@ public class MilvusService {
                 EmbeddingVector sample = validVectors.get(0);
                 log.info("Sample vector - ID: {}, Vector dimension: {}, Metadata keys: {}",
                         sample.getId(),
-                        sample.getVector() != null ? sample.getVector().size() : 0,
+                        sample.getVector() != null ? sample.getVector().length : 0,
                         sample.getMetadata() != null ? sample.getMetadata().keySet() : "null");
             }
 
             // Ensure collection exists with retry
-            ensureCollectionExistsWithRetry(collectionName, validVectors.get(0).getVector().size());
-
-            // Process vectors in batches for better reliability
-            int totalBatches = (validVectors.size() + UPSERT_BATCH_SIZE - 1) / UPSERT_BATCH_SIZE;
-            int successCount = 0;
-
-            for (int i = 0; i < validVectors.size(); i += UPSERT_BATCH_SIZE) {
-                int endIndex = Math.min(i + UPSERT_BATCH_SIZE, validVectors.size());
-                List<EmbeddingVector> batch = validVectors.subList(i, endIndex);
-                int batchNum = (i / UPSERT_BATCH_SIZE) + 1;
-
-                log.info("Processing batch {}/{}: {} vectors", batchNum, totalBatches, batch.size());
+            int dimension = validVectors.get(0).getVector().length;
+            ensureCollectionExistsWithRetry(collectionName, dimension);
+
+            // Checked against the cached schema so a mismatch fails here rather than in Milvus
+            metadataCache.validateDimension(collectionName, dimension);
+            long mismatched = validVectors.stream().filter(v -> v.getVector().length != dimension).count();
+            if (mismatched > 0) {
+                throw new IllegalArgumentException(String.format(
+                        "%d of %d vectors do not have dimension %d", mismatched, validVectors.size(), dimension));
+            }
 
-                boolean batchSuccess = upsertBatchWithRetry(collectionName, batch, batchNum, totalBatches);
-                if (batchSuccess) {
-                    successCount += batch.size();
-                }
+            int version = metadataCache.describe(collectionName).map(CollectionSchema::version)
+                    .orElse(CollectionSchema.LEGACY_VERSION);
 
-                // Small delay between batches to avoid overwhelming Zilliz Cloud
-                if (endIndex < validVectors.size()) {
-                    try {
-                        Thread.sleep(200);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                    }
-                }
+            // Batches are sized and sent concurrently by the engine, backing off when throttled
+            int successCount;
+            try {
+                successCount = upsertEngine.upsert(validVectors, batch -> buildUpsertParam(collectionName, version, batch));
+            } finally {
+                // Some batches may have landed even when others were rejected
+                searchService.invalidate(collectionName);
             }
 
             log.info("Successfully upserted {}/{} vectors to collection {}",
                     successCount, validVectors.size(), collectionName);
+            if (requireAll && successCount < validVectors.size()) {
+                throw new IllegalStateException(String.format("Only %d of %d vectors were upserted to %s",
+                        successCount, validVectors.size(), collectionName));
+            }
 
+        } catch (IllegalArgumentException e) {
+            log.error("Rejected vectors for {}: {}", collectionName, e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Error upserting vectors to {}: {}", collectionName, e.getMessage(), e);
             throw new RuntimeException("Failed to upsert vectors: " + e.getMessage(), e);
@@ -321,6 +459,9 @@ public class MilvusService {
                     createCollection(collectionName, dimension);
                 }
                 return;
+            } catch (IllegalArgumentException e) {
+                // A dimension mismatch does not go away on retry
+                throw e;
             } catch (Exception e) {
                 log.warn("Attempt {}/{} to ensure collection exists failed: {}",
                         attempt, MAX_RETRIES, e.getMessage());
@@ -337,100 +478,286 @@ public class MilvusService {
         }
     }
 
-    private boolean upsertBatchWithRetry(String collectionName, List<EmbeddingVector> batch,
-                                          int batchNum, int totalBatches) {
-        Exception lastException = null;
+    private UpsertParam buildUpsertParam(String collectionName, int version, List<EmbeddingVector> batch) {
+        List<String> ids = batch.stream()
+                .map(EmbeddingVector::getId)
+                .collect(Collectors.toList());
+
+        // The SDK requires List<List<Float>>; views avoid boxing whole vectors up front
+        List<List<Float>> vectorList = batch.stream()
+                .map(v -> FloatVectors.asList(v.getVector()))
+                .collect(Collectors.toList());
+
+        // Convert metadata to JsonObject for Milvus JSON field type
+        List<JsonObject> jsonMetadata = batch.stream()
+                .map(v -> mapToJsonObject(v.getMetadata()))
+                .collect(Collectors.toList());
+
+        List<InsertParam.Field> fields = new ArrayList<>();
+        fields.add(new InsertParam.Field(ID_FIELD, ids));
+        fields.add(new InsertParam.Field(VECTOR_FIELD, vectorList));
+        fields.add(new InsertParam.Field(METADATA_FIELD, jsonMetadata));
+        if (version >= CollectionSchema.SCALAR_FIELDS_VERSION) {
+            for (String key : CollectionSchema.SCALAR_FIELDS.keySet()) {
+                fields.add(new InsertParam.Field(key, batch.stream()
+                        .map(v -> CollectionSchema.scalarValue(v.getMetadata(), key))
+                        .collect(Collectors.toList())));
+            }
+        }
 
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                // Prepare data for insertion
-                List<String> ids = batch.stream()
-                        .map(EmbeddingVector::getId)
-                        .collect(Collectors.toList());
+        // Upsert replaces rows with the same primary key instead of adding duplicates
+        return UpsertParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withFields(fields)
+                .build();
+    }
 
-                List<List<Float>> vectorList = batch.stream()
-                        .map(EmbeddingVector::getVector)
-                        .collect(Collectors.toList());
+    /**
+     * Deletes the rows of each document whose ids the last sync did not produce: chunks a
+     * shorter version no longer has, rows written under an older id scheme, and all rows of a
+     * document that yields no chunks any more. A document is identified by its repository and
+     * file path. Called once per document with its complete id set, after all its vectors were
+     * written, since the orchestrator may spread one document over several upserts.
+     *
+     * Returns the number of rows deleted.
+     */
+    public int deleteStaleChunks(String collectionName, List<DocumentChunkIds> documents) {
+        // A collection being bulk-filled is not loaded, cannot be queried and has no old chunks
+        if (!upsertProperties.isDeleteStaleChunks() || unloadedBuilds.contains(collectionName)) {
+            return 0;
+        }
+        Optional<Integer> version = metadataCache.describe(collectionName).map(CollectionSchema::version);
+        if (version.isEmpty()) {
+            return 0;
+        }
 
-                // Convert metadata to JsonObject for Milvus JSON field type
-                List<JsonObject> jsonMetadata = batch.stream()
-                        .map(v -> mapToJsonObject(v.getMetadata()))
-                        .collect(Collectors.toList());
+        int deleted = 0;
+        for (DocumentChunkIds document : documents) {
+            if (document.getRepository() == null || document.getFilePath() == null) {
+                continue;
+            }
+            try {
+                int count = deleteStaleChunks(collectionName, version.get(), document);
+                if (count > 0) {
+                    log.info("Deleted {} stale chunks of {}/{}", count, document.getRepository(), document.getFilePath());
+                    deleted += count;
+                }
+            } catch (Exception e) {
+                // Stale rows only cost space and some search noise; the vectors themselves are written
+                log.warn("Failed to delete stale chunks of {}/{}: {}", document.getRepository(),
+                        document.getFilePath(), e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            searchService.invalidate(collectionName);
+            log.info("Deleted {} stale chunks across {} documents in {}", deleted, documents.size(), collectionName);
+        }
+        return deleted;
+    }
 
-                List<InsertParam.Field> fields = new ArrayList<>();
-                fields.add(new InsertParam.Field(ID_FIELD, ids));
-                fields.add(new InsertParam.Field(VECTOR_FIELD, vectorList));
-                fields.add(new InsertParam.Field(METADATA_FIELD, jsonMetadata));
+    private int deleteStaleChunks(String collectionName, int version, DocumentChunkIds document) {
+        String expr = String.format("%s == \"%s\" and %s == \"%s\"",
+                CollectionSchema.field(version, "repository"), escapeExpr(document.getRepository()),
+                CollectionSchema.field(version, "file_path"), escapeExpr(document.getFilePath()));
+        List<String> current = document.getChunkIds() != null ? document.getChunkIds() : List.of();
+        if (!current.isEmpty()) {
+            expr += current.stream()
+                    .map(id -> "\"" + escapeExpr(id) + "\"")
+                    .collect(Collectors.joining(", ", " and " + ID_FIELD + " not in [", "]"));
+        }
 
-                InsertParam insertParam = InsertParam.newBuilder()
-                        .withCollectionName(collectionName)
-                        .withFields(fields)
-                        .build();
+        int deleted = 0;
+        List<String> ids;
+        do {
+            ids = findIds(collectionName, expr);
+            if (!ids.isEmpty()) {
+                deleteByIds(collectionName, ids);
+                deleted += ids.size();
+            }
+        } while (ids.size() == ID_QUERY_LIMIT);
+        return deleted;
+    }
 
-                log.debug("Calling Milvus insert for batch {}/{}, attempt {}", batchNum, totalBatches, attempt);
-                R<io.milvus.grpc.MutationResult> response = milvusClient.insert(insertParam);
+    private List<String> findIds(String collectionName, String expr) {
+        QueryParam queryParam = QueryParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withExpr(expr)
+                .withOutFields(List.of(ID_FIELD))
+                .withLimit(ID_QUERY_LIMIT)
+                // Strong so rows written moments ago (e.g. by another upsert call) are seen
+                .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
+                .build();
+        R<io.milvus.grpc.QueryResults> response = milvusClient.query(queryParam);
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("Query for ids failed: " + getResponseMessage(response));
+        }
 
-                if (response.getStatus() == R.Status.Success.getCode()) {
-                    log.info("✅ Batch {}/{} inserted successfully ({} vectors)",
-                            batchNum, totalBatches, batch.size());
-                    return true;
-                } else {
-                    String responseMessage = getResponseMessage(response);
-                    String errorMsg = String.format("Batch %d/%d insert failed: %s (Status: %d)",
-                            batchNum, totalBatches, responseMessage, response.getStatus());
-                    log.warn("Attempt {}/{}: {}", attempt, MAX_RETRIES, errorMsg);
-                    lastException = new RuntimeException(errorMsg);
-                }
-            } catch (Exception e) {
-                log.warn("Attempt {}/{} for batch {}/{} failed: {}",
-                        attempt, MAX_RETRIES, batchNum, totalBatches, e.getMessage());
-                lastException = e;
-            }
+        List<String> ids = new ArrayList<>();
+        for (Object id : new QueryResultsWrapper(response.getData()).getFieldWrapper(ID_FIELD).getFieldData()) {
+            ids.add((String) id);
+        }
+        return ids;
+    }
 
-            // Wait before retry
-            if (attempt < MAX_RETRIES) {
-                try {
-                    long waitTime = RETRY_DELAY_MS * attempt;
-                    log.debug("Waiting {}ms before retry...", waitTime);
-                    Thread.sleep(waitTime);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+    private void deleteByIds(String collectionName, List<String> ids) {
+        for (int i = 0; i < ids.size(); i += DELETE_BATCH_SIZE) {
+            List<String> batch = ids.subList(i, Math.min(i + DELETE_BATCH_SIZE, ids.size()));
+            String expr = batch.stream()
+                    .map(id -> "\"" + escapeExpr(id) + "\"")
+                    .collect(Collectors.joining(", ", ID_FIELD + " in [", "]"));
+
+            R<io.milvus.grpc.MutationResult> response = milvusClient.delete(DeleteParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .withExpr(expr)
+                    .build());
+            if (response.getStatus() != R.Status.Success.getCode()) {
+                throw new RuntimeException("Delete failed: " + getResponseMessage(response));
             }
         }
+    }
 
-        // Log final failure but don't throw - continue with other batches
-        log.error("❌ Batch {}/{} failed after {} attempts: {}",
-                batchNum, totalBatches, MAX_RETRIES,
-                lastException != null ? lastException.getMessage() : "Unknown error");
-        return false;
+    private static String escapeExpr(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
     }
 
     public boolean hasCollection(String collectionName) {
         try {
-            log.debug("Checking if collection {} exists", collectionName);
-            HasCollectionParam param = HasCollectionParam.newBuilder()
-                    .withCollectionName(collectionName)
-                    .build();
+            return metadataCache.exists(collectionName);
+        } catch (Exception e) {
+            log.error("Error checking collection existence for {}: {}", collectionName, e.getMessage(), e);
+            return false;
+        }
+    }
 
-            R<Boolean> response = milvusClient.hasCollection(param);
+    /**
+     * Deletes every chunk of a repository. On collections with scalar fields the repository
+     * filter is an index lookup; with the partition-key layout it also only reads the
+     * repository's partition. The deletes themselves go by primary key.
+     */
+    public int deleteRepository(String collectionName, String repository) {
+        int version = metadataCache.describe(collectionName).map(CollectionSchema::version)
+                .orElseThrow(() -> new IllegalArgumentException("Collection " + collectionName + " does not exist"));
+        String expr = CollectionSchema.field(version, "repository") + " == \"" + escapeExpr(repository) + "\"";
+
+        int deleted = 0;
+        List<String> ids;
+        do {
+            ids = findIds(collectionName, expr);
+            if (!ids.isEmpty()) {
+                deleteByIds(collectionName, ids);
+                deleted += ids.size();
+            }
+        } while (ids.size() == ID_QUERY_LIMIT);
 
-            String responseMessage = getResponseMessage(response);
-            log.debug("hasCollection response - Status: {}, Data: {}, Message: {}",
-                    response.getStatus(), response.getData(), responseMessage);
+        searchService.invalidate(collectionName);
+        log.info("Deleted {} chunks of repository {} from {}", deleted, repository, collectionName);
+        return deleted;
+    }
 
+    /**
+     * Copies a collection into a new one created with the configured schema version and the given
+     * layout, e.g. to move a JSON-only collection to indexed scalar fields or to partition it by
+     * repository. Rows are paged by primary key and
+     * written through the upsert engine; the source is left untouched, so switching over (and
+     * dropping the source) is a separate step once the counts match.
+     */
+    public MigrationResult migrateCollection(String sourceCollection, String targetCollection) {
+        return migrateCollection(sourceCollection, targetCollection, defaultLayout());
+    }
+
+    public MigrationResult migrateCollection(String sourceCollection, String targetCollection, CollectionLayout layout) {
+        long start = System.currentTimeMillis();
+        if (sourceCollection.equals(targetCollection)) {
+            throw new IllegalArgumentException("Source and target collection must differ");
+        }
+        CollectionDescriptor source = metadataCache.describe(sourceCollection)
+                .orElseThrow(() -> new IllegalArgumentException("Collection " + sourceCollection + " does not exist"));
+        if (source.dimension() <= 0) {
+            throw new IllegalArgumentException("Collection " + sourceCollection + " has no float vector field");
+        }
+
+        createCollection(targetCollection, source.dimension(), layout);
+        int targetVersion = metadataCache.describe(targetCollection).map(CollectionSchema::version)
+                .orElseThrow(() -> new RuntimeException("Collection " + targetCollection + " was not created"));
+        log.info("Migrating {} (schema v{}) to {} (schema v{})", sourceCollection, CollectionSchema.version(source),
+                targetCollection, targetVersion);
+
+        long copied = 0;
+        String cursor = "";
+        while (true) {
+            R<io.milvus.grpc.QueryResults> response = milvusClient.query(QueryParam.newBuilder()
+                    .withCollectionName(sourceCollection)
+                    .withExpr(ID_FIELD + " > \"" + escapeExpr(cursor) + "\"")
+                    .withOutFields(List.of(ID_FIELD, VECTOR_FIELD, METADATA_FIELD))
+                    .withLimit(MIGRATION_PAGE_SIZE)
+                    .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
+                    .build());
             if (response.getStatus() != R.Status.Success.getCode()) {
-                log.warn("hasCollection check failed with status {}: {}",
-                        response.getStatus(), responseMessage);
-                return false;
+                throw new RuntimeException("Reading " + sourceCollection + " failed after " + copied + " rows: "
+                        + getResponseMessage(response));
             }
 
-            return response.getData() != null && response.getData();
-        } catch (Exception e) {
-            log.error("Error checking collection existence for {}: {}", collectionName, e.getMessage(), e);
-            return false;
+            QueryResultsWrapper page = new QueryResultsWrapper(response.getData());
+            List<?> ids = page.getFieldWrapper(ID_FIELD).getFieldData();
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<?> vectors = page.getFieldWrapper(VECTOR_FIELD).getFieldData();
+            List<?> metadata = page.getFieldWrapper(METADATA_FIELD).getFieldData();
+
+            List<EmbeddingVector> rows = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                rows.add(EmbeddingVector.builder()
+                        .id((String) ids.get(i))
+                        .vector(toFloatArray((List<?>) vectors.get(i)))
+                        .metadata(CollectionSchema.metadata(metadata.get(i)))
+                        .build());
+                // The next page starts after the largest id seen, whatever order the page came in
+                if (((String) ids.get(i)).compareTo(cursor) > 0) {
+                    cursor = (String) ids.get(i);
+                }
+            }
+
+            int written = upsertEngine.upsert(rows, batch -> buildUpsertParam(targetCollection, targetVersion, batch));
+            if (written != rows.size()) {
+                throw new RuntimeException(String.format("Migration to %s stopped: %d of %d rows in a page were written (%d copied before)",
+                        targetCollection, written, rows.size(), copied));
+            }
+            copied += written;
+            log.info("Migrated {} rows from {} to {}", copied, sourceCollection, targetCollection);
+            if (ids.size() < MIGRATION_PAGE_SIZE) {
+                break;
+            }
+        }
+
+        searchService.invalidate(targetCollection);
+        long sourceRows = countRows(sourceCollection);
+        if (sourceRows != copied) {
+            log.warn("Migration copied {} rows but {} has {} rows", copied, sourceCollection, sourceRows);
+        }
+        return new MigrationResult(sourceCollection, targetCollection, targetVersion, sourceRows, copied,
+                System.currentTimeMillis() - start);
+    }
+
+    private long countRows(String collectionName) {
+        R<io.milvus.grpc.QueryResults> response = milvusClient.query(QueryParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withExpr("")
+                .withOutFields(List.of("count(*)"))
+                .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
+                .build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new RuntimeException("Counting rows of " + collectionName + " failed: " + getResponseMessage(response));
+        }
+        return ((Number) new QueryResultsWrapper(response.getData()).getFieldWrapper("count(*)").getFieldData().get(0)).longValue();
+    }
+
+    private static float[] toFloatArray(List<?> values) {
+        float[] vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = ((Number) values.get(i)).floatValue();
         }
+        return vector;
     }
 
     public void dropCollection(String collectionName) {
@@ -440,6 +767,9 @@ public class MilvusService {
                     .build();
 
             R<RpcStatus> response = milvusClient.dropCollection(param);
+            metadataCache.invalidate(collectionName);
+            unloadedBuilds.remove(collectionName);
+            searchService.invalidate(collectionName);
 
             if (response.getStatus() == R.Status.Success.getCode()) {
                 log.info("Collection {} dropped successfully", collectionName);
@@ -0,0 +1,254 @@
+package com.reposync.milvus.service;
+
+import com.reposync.common.dto.ReindexStatus;
+import com.reposync.milvus.config.MilvusIndexProperties;
+import com.reposync.milvus.wal.VectorWriteAheadLog;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.DescribeCollectionResponse;
+import io.milvus.param.R;
+import io.milvus.param.RpcStatus;
+import io.milvus.param.alias.AlterAliasParam;
+import io.milvus.param.alias.CreateAliasParam;
+import io.milvus.param.collection.DescribeCollectionParam;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blue/green rebuilds. Readers and writers address the collection by an alias; a reindex fills a
+ * new versioned collection without index or load (so it takes no search traffic and pays for
+ * indexing once), then indexes and loads it and switches the alias in one call. The previous
+ * collection is dropped after a grace period so in-flight readers can finish.
+ *
+ * Reindex state and pending drops are kept in memory: after a restart an unfinished build must
+ * be started again, and a previous collection whose drop was pending has to be dropped by hand.
+ */
+@Slf4j
+@Service
+public class ReindexService {
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final MilvusClient milvusClient;
+    private final MilvusService milvusService;
+    private final CollectionMetadataCache metadataCache;
+    private final VectorSearchService searchService;
+    private final MilvusIndexProperties indexProperties;
+    private final VectorWriteAheadLog writeAheadLog;
+    private final Map<String, ReindexStatus> reindexes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService dropScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "milvus-reindex-drop");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${milvus.reindex.drop-grace-period:10m}")
+    private Duration dropGracePeriod;
+
+    public ReindexService(MilvusClient milvusClient, MilvusService milvusService,
+                          CollectionMetadataCache metadataCache, VectorSearchService searchService,
+                          MilvusIndexProperties indexProperties, VectorWriteAheadLog writeAheadLog) {
+        this.milvusClient = milvusClient;
+        this.milvusService = milvusService;
+        this.metadataCache = metadataCache;
+        this.searchService = searchService;
+        this.indexProperties = indexProperties;
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dropScheduler.shutdownNow();
+    }
+
+    /**
+     * Creates the next versioned collection for the alias. Vectors for the rebuild are upserted
+     * into the returned target collection.
+     *
+     * @param indexProfile index profile for the new collection, or null for the alias' configured one
+     */
+    public synchronized ReindexStatus start(String alias, int dimension, CollectionLayout layout, String indexProfile) {
+        ReindexStatus current = reindexes.get(alias);
+        if (current != null && ("BUILDING".equals(current.getStatus()) || "INDEXING".equals(current.getStatus()))) {
+            throw new IllegalStateException("Reindex of " + alias + " into " + current.getTargetCollection()
+                    + " is already " + current.getStatus());
+        }
+
+        String target = alias + "_" + LocalDateTime.now(ZoneOffset.UTC).format(VERSION_FORMAT);
+        // Versioned names are not configured anywhere, so the alias decides the profile
+        milvusService.createCollection(target, dimension, layout,
+                indexProfile != null ? indexProfile : indexProperties.profileNameFor(alias), false);
+        ReindexStatus status = ReindexStatus.builder()
+                .alias(alias)
+                .targetCollection(target)
+                .status("BUILDING")
+                .startedAt(LocalDateTime.now())
+                .build();
+        reindexes.put(alias, status);
+        writeAheadLog.retainFailedWrites(target);
+        log.info("Started reindex of {} into {}", alias, target);
+        return status;
+    }
+
+    /**
+     * Indexes and loads the target collection, then points the alias at it. When that fails the
+     * target is dropped, as a failed build cannot be completed again.
+     */
+    public ReindexStatus complete(String alias) {
+        ReindexStatus status = transition(alias, "BUILDING", "INDEXING");
+        String target = status.getTargetCollection();
+        boolean aliasSwitched = false;
+        try {
+            // Upserts into the target may still be in the write-ahead log; a partial build never goes live
+            writeAheadLog.awaitDrained(target);
+            long failedWrites = writeAheadLog.failedWrites(target);
+            if (failedWrites > 0) {
+                throw new IllegalStateException(failedWrites + " upserts into " + target + " were rejected by Milvus");
+            }
+            long start = System.currentTimeMillis();
+            milvusService.indexAndLoad(target);
+            boolean ready = metadataCache.describe(target).map(d -> d.indexed() && d.loaded()).orElse(false);
+            if (!ready) {
+                throw new IllegalStateException("Collection " + target + " is not indexed and loaded");
+            }
+            log.info("Indexed and loaded {} in {}ms", target, System.currentTimeMillis() - start);
+
+            String previous = switchAlias(alias, target);
+            aliasSwitched = true;
+            metadataCache.invalidate(alias);
+            searchService.invalidate(alias);
+
+            LocalDateTime dropAt = null;
+            if (previous != null) {
+                dropAt = LocalDateTime.now().plus(dropGracePeriod);
+                dropScheduler.schedule(() -> dropPrevious(alias, previous), dropGracePeriod.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            ReindexStatus switched = status.toBuilder()
+                    .status("SWITCHED")
+                    .previousCollection(previous)
+                    .switchedAt(LocalDateTime.now())
+                    .previousDropAt(dropAt)
+                    .build();
+            reindexes.put(alias, switched);
+            writeAheadLog.releaseFailedWrites(target);
+            log.info("✅ Alias {} now points to {} (previous: {}, dropped at {})", alias, target, previous, dropAt);
+            return switched;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("❌ Reindex of {} into {} failed: {}", alias, target, e.getMessage(), e);
+            if (!aliasSwitched) {
+                dropTarget(alias, target);
+            }
+            ReindexStatus failed = status.toBuilder().status("FAILED").errorMessage(e.getMessage()).build();
+            reindexes.put(alias, failed);
+            return failed;
+        }
+    }
+
+    /**
+     * Drops the target collection of an unfinished rebuild; the alias is left untouched.
+     */
+    public ReindexStatus abort(String alias) {
+        ReindexStatus status = reindexes.get(alias);
+        if (status == null || "SWITCHED".equals(status.getStatus()) || "ABORTED".equals(status.getStatus())) {
+            throw new IllegalStateException("No unfinished reindex of " + alias);
+        }
+        milvusService.dropCollection(status.getTargetCollection());
+        writeAheadLog.releaseFailedWrites(status.getTargetCollection());
+        ReindexStatus aborted = status.toBuilder().status("ABORTED").build();
+        reindexes.put(alias, aborted);
+        log.info("Aborted reindex of {} and dropped {}", alias, status.getTargetCollection());
+        return aborted;
+    }
+
+    public Optional<ReindexStatus> status(String alias) {
+        return Optional.ofNullable(reindexes.get(alias));
+    }
+
+    private synchronized ReindexStatus transition(String alias, String from, String to) {
+        ReindexStatus status = reindexes.get(alias);
+        if (status == null || !from.equals(status.getStatus())) {
+            throw new IllegalStateException("No reindex of " + alias + " in state " + from);
+        }
+        ReindexStatus next = status.toBuilder().status(to).build();
+        reindexes.put(alias, next);
+        return next;
+    }
+
+    /**
+     * Points the alias at the target and returns the collection it pointed to before, if any
+     * is left to drop.
+     */
+    private String switchAlias(String alias, String target) {
+        R<DescribeCollectionResponse> described = milvusClient.describeCollection(DescribeCollectionParam.newBuilder()
+                .withCollectionName(alias)
+                .build());
+        if (described.getStatus() != R.Status.Success.getCode()) {
+            check(milvusClient.createAlias(CreateAliasParam.newBuilder()
+                    .withCollectionName(target)
+                    .withAlias(alias)
+                    .build()), "createAlias " + alias);
+            return null;
+        }
+
+        String current = described.getData().getCollectionName();
+        if (current.equals(alias)) {
+            // A plain collection holds the name: it has to go before the alias can take it, so
+            // this first switch is not atomic. Every later one is.
+            log.warn("{} is a collection, not an alias; dropping it to replace it with an alias to {}", alias, target);
+            milvusService.dropCollection(alias);
+            check(milvusClient.createAlias(CreateAliasParam.newBuilder()
+                    .withCollectionName(target)
+                    .withAlias(alias)
+                    .build()), "createAlias " + alias);
+            return null;
+        }
+
+        check(milvusClient.alterAlias(AlterAliasParam.newBuilder()
+                .withCollectionName(target)
+                .withAlias(alias)
+                .build()), "alterAlias " + alias);
+        return current;
+    }
+
+    private void dropTarget(String alias, String target) {
+        try {
+            milvusService.dropCollection(target);
+            writeAheadLog.releaseFailedWrites(target);
+            log.info("Dropped {} after the failed reindex of {}", target, alias);
+        } catch (Exception e) {
+            log.error("Failed to drop {} after the failed reindex of {}: {}", target, alias, e.getMessage(), e);
+        }
+    }
+
+    private void dropPrevious(String alias, String previous) {
+        try {
+            milvusService.dropCollection(previous);
+            log.info("Dropped {} after the reindex of {}", previous, alias);
+        } catch (Exception e) {
+            log.error("Failed to drop {} after the reindex of {}: {}", previous, alias, e.getMessage(), e);
+        }
+    }
+
+    private static void check(R<RpcStatus> response, String operation) {
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            String message = response.getException() != null
+                    ? response.getException().getMessage() : "Status code: " + response.getStatus();
+            throw new RuntimeException(operation + " failed: " + message);
+        }
+    }
+}
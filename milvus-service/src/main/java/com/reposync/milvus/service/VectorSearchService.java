@@ -0,0 +1,210 @@
+package com.reposync.milvus.service;
+
+import com.google.gson.Gson;
+import com.reposync.common.dto.SearchHit;
+import com.reposync.common.dto.SearchRequest;
+import com.reposync.common.dto.SearchResponse;
+import com.reposync.common.util.FloatVectors;
+import com.reposync.common.util.TtlLruCache;
+import com.reposync.milvus.config.MilvusIndexProperties;
+import com.reposync.milvus.config.MilvusSearchProperties;
+import io.milvus.client.MilvusClient;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
+import io.milvus.grpc.SearchResults;
+import io.milvus.param.MetricType;
+import io.milvus.param.R;
+import io.milvus.param.dml.SearchParam;
+import io.milvus.response.SearchResultsWrapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read path for consumers: top-K similarity search with an optional metadata filter. Results
+ * of non-STRONG searches are kept in a short-lived LRU cache keyed by everything that affects
+ * them; upserts, deletes and drops evict the collection's entries.
+ */
+@Slf4j
+@Service
+public class VectorSearchService {
+
+    private static final Gson GSON = new Gson();
+
+    private final MilvusClient milvusClient;
+    private final CollectionMetadataCache metadataCache;
+    private final MilvusSearchProperties properties;
+    private final MilvusIndexProperties indexProperties;
+    private final TtlLruCache<SearchKey, SearchResponse> resultCache;
+    private final Timer searchTimer;
+
+    @Value("${milvus.collection-name}")
+    private String defaultCollectionName;
+
+    public VectorSearchService(MilvusClient milvusClient, CollectionMetadataCache metadataCache,
+                               MilvusSearchProperties properties, MilvusIndexProperties indexProperties,
+                               MeterRegistry meterRegistry) {
+        this.milvusClient = milvusClient;
+        this.metadataCache = metadataCache;
+        this.properties = properties;
+        this.indexProperties = indexProperties;
+        this.resultCache = new TtlLruCache<>(properties.getCache().getMaxSize(), properties.getCache().getTtl());
+        this.searchTimer = Timer.builder("milvus.search")
+                .description("Milvus search latency, excluding cache hits")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        FunctionCounter.builder("milvus.search.cache", resultCache, TtlLruCache::hitCount)
+                .description("Search result cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("milvus.search.cache", resultCache, TtlLruCache::missCount)
+                .description("Search result cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public SearchResponse search(SearchRequest request) {
+        long start = System.nanoTime();
+        String collectionName = request.getCollectionName() != null && !request.getCollectionName().isBlank()
+                ? request.getCollectionName() : defaultCollectionName;
+        List<float[]> vectors = queryVectors(request);
+        int topK = request.getTopK() != null ? request.getTopK() : properties.getDefaultTopK();
+        if (topK < 1 || topK > properties.getMaxTopK()) {
+            throw new IllegalArgumentException("topK must be between 1 and " + properties.getMaxTopK() + ": " + topK);
+        }
+        ConsistencyLevelEnum consistencyLevel = consistencyLevel(request.getConsistencyLevel());
+
+        CollectionDescriptor descriptor = metadataCache.describe(collectionName)
+                .orElseThrow(() -> new IllegalArgumentException("Collection " + collectionName + " does not exist"));
+
+        // The index profile's params (ef, nprobe, ...), then configured defaults, then the request's
+        Map<String, Object> params = new LinkedHashMap<>(indexProperties.searchParams(collectionName, descriptor.indexType()));
+        params.putAll(properties.getDefaultParams());
+        if (request.getSearchParams() != null) {
+            params.putAll(request.getSearchParams());
+        }
+        String paramsJson = GSON.toJson(params);
+        // Filters on promoted metadata keys go to the scalar fields and their indexes
+        String filter = request.getFilter() != null && !request.getFilter().isBlank()
+                ? CollectionSchema.rewriteFilter(CollectionSchema.version(descriptor), request.getFilter()) : null;
+        int dimension = vectors.get(0).length;
+        for (float[] vector : vectors) {
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException("Query vectors have different dimensions");
+            }
+        }
+        metadataCache.validateDimension(collectionName, dimension);
+
+        // STRONG asks for the latest writes, which a cached result may not reflect
+        boolean cacheable = properties.getCache().isEnabled() && consistencyLevel != ConsistencyLevelEnum.STRONG;
+        SearchKey key = new SearchKey(collectionName, vectors.stream().map(FloatVectors::asList).toList(),
+                topK, consistencyLevel, filter, paramsJson);
+        if (cacheable) {
+            SearchResponse cached = resultCache.get(key);
+            if (cached != null) {
+                return cached.toBuilder()
+                        .cached(true)
+                        .tookMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                        .build();
+            }
+        }
+
+        SearchParam.Builder searchParam = SearchParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withVectorFieldName(MilvusService.VECTOR_FIELD)
+                .withMetricType(MetricType.valueOf(properties.getMetricType()))
+                .withVectors(key.vectors())
+                .withTopK(topK)
+                .withParams(paramsJson)
+                .withOutFields(List.of(MilvusService.METADATA_FIELD))
+                .withConsistencyLevel(consistencyLevel);
+        if (filter != null) {
+            searchParam.withExpr(filter);
+        }
+
+        long searchStart = System.nanoTime();
+        R<SearchResults> response = milvusClient.search(searchParam.build());
+        searchTimer.record(System.nanoTime() - searchStart, TimeUnit.NANOSECONDS);
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            String message = response.getException() != null
+                    ? response.getException().getMessage() : "Status code: " + response.getStatus();
+            throw new RuntimeException("Search in " + collectionName + " failed: " + message);
+        }
+
+        SearchResultsWrapper wrapper = new SearchResultsWrapper(response.getData().getResults());
+        List<List<SearchHit>> results = new ArrayList<>(vectors.size());
+        for (int i = 0; i < vectors.size(); i++) {
+            List<SearchHit> hits = new ArrayList<>();
+            for (SearchResultsWrapper.IDScore score : wrapper.getIDScore(i)) {
+                hits.add(SearchHit.builder()
+                        .id(score.getStrID())
+                        .score(score.getScore())
+                        .metadata(CollectionSchema.metadata(score.getFieldValues().get(MilvusService.METADATA_FIELD)))
+                        .build());
+            }
+            results.add(List.copyOf(hits));
+        }
+
+        SearchResponse result = SearchResponse.builder()
+                .results(List.copyOf(results))
+                .cached(false)
+                .tookMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .build();
+        if (cacheable) {
+            resultCache.put(key, result);
+        }
+        log.debug("Searched {} with {} vectors (topK={}, filter={}) in {}ms", collectionName, vectors.size(), topK,
+                filter, result.getTookMs());
+        return result;
+    }
+
+    /**
+     * Drops cached results for the collection after its contents changed.
+     */
+    public void invalidate(String collectionName) {
+        resultCache.invalidateIf(key -> key.collectionName().equals(collectionName));
+    }
+
+    private List<float[]> queryVectors(SearchRequest request) {
+        List<float[]> vectors = new ArrayList<>();
+        if (request.getVector() != null) {
+            vectors.add(request.getVector());
+        }
+        if (request.getVectors() != null) {
+            vectors.addAll(request.getVectors());
+        }
+        if (vectors.isEmpty() || vectors.stream().anyMatch(v -> v == null || v.length == 0)) {
+            throw new IllegalArgumentException("At least one non-empty query vector is required");
+        }
+        if (vectors.size() > properties.getMaxQueryVectors()) {
+            throw new IllegalArgumentException("At most " + properties.getMaxQueryVectors()
+                    + " query vectors per request: " + vectors.size());
+        }
+        return vectors;
+    }
+
+    private ConsistencyLevelEnum consistencyLevel(String requested) {
+        String level = requested != null && !requested.isBlank() ? requested : properties.getDefaultConsistencyLevel();
+        try {
+            return ConsistencyLevelEnum.valueOf(level.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown consistency level: " + level);
+        }
+    }
+
+    /**
+     * Everything that changes a search result. The vectors are list views, compared by value.
+     */
+    private record SearchKey(String collectionName, List<List<Float>> vectors, int topK,
+                             ConsistencyLevelEnum consistencyLevel, String filter, String params) {
+    }
+}
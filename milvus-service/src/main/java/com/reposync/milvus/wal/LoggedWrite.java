@@ -0,0 +1,12 @@
+package com.reposync.milvus.wal;
+
+import com.reposync.common.dto.EmbeddingVector;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One record of the write-ahead log: the vectors of one upsert request, as received.
+ */
+public record LoggedWrite(String collection, LocalDateTime acceptedAt, List<EmbeddingVector> vectors) {
+}
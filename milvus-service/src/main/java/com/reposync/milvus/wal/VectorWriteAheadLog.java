@@ -0,0 +1,612 @@
+package com.reposync.milvus.wal;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.VectorWrite;
+import com.reposync.common.spool.DurableFiles;
+import com.reposync.common.spool.OffsetCheckpoint;
+import com.reposync.common.spool.SegmentLog;
+import com.reposync.milvus.config.MilvusWalProperties;
+import com.reposync.milvus.service.MilvusService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log in front of Milvus upserts. An upsert request is appended to a segment log on
+ * disk and acknowledged with a write id (its log offset) as soon as it is durable, so callers do
+ * not wait for Milvus. A single flusher drains the log in order: consecutive requests are merged
+ * into one upsert per collection (group commit) and a group is retried with backoff until Milvus
+ * takes it, so an outage delays writes instead of dropping them.
+ *
+ * The flusher's offset only moves past a group once every request in it is committed or
+ * rejected. After a crash the requests past the committed offset are upserted again, which is
+ * harmless since upserts are idempotent. A request Milvus rejects outright (wrong dimension, a
+ * request that cannot be built) or a damaged log record is marked FAILED and skipped, so it does
+ * not hold up the requests behind it. Failed writes are stored on disk before the flusher moves
+ * past them, and those of collections that are being built are kept until the build releases
+ * them, so a rebuild can check that none of its writes were lost.
+ */
+@Slf4j
+@Service
+public class VectorWriteAheadLog {
+
+    private static final String STATUS_PENDING = "PENDING";
+    private static final String STATUS_COMMITTED = "COMMITTED";
+    private static final String STATUS_FAILED = "FAILED";
+    private static final String STATUS_UNKNOWN = "UNKNOWN";
+
+    private final MilvusService milvusService;
+    private final MilvusWalProperties config;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final MeterRegistry meterRegistry;
+
+    // Write id -> status. Pending writes are always here, finished ones for status-retention
+    private final Map<Long, VectorWrite> writes = new ConcurrentHashMap<>();
+    // Collections whose failed writes outlive status-retention, see retainFailedWrites
+    private final Set<String> retainedCollections = ConcurrentHashMap.newKeySet();
+    private final Object newRecords = new Object();
+    private final Object commits = new Object();
+
+    private Path failedDirectory;
+    private SegmentLog segmentLog;
+    private OffsetCheckpoint checkpoint;
+    private Thread flusher;
+    private Timer commitLag;
+    private Counter flushRetries;
+    private volatile boolean running;
+    private volatile long committedOffset;
+
+    public VectorWriteAheadLog(MilvusService milvusService, MilvusWalProperties config,
+                               Jackson2ObjectMapperBuilder mapperBuilder, MeterRegistry meterRegistry) {
+        this.milvusService = milvusService;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.jsonMapper = mapperBuilder.build();
+        this.cborMapper = mapperBuilder.factory(new CBORFactory()).build();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!config.isEnabled()) {
+            log.info("Milvus write-ahead log disabled, upserts go straight to Milvus");
+            return;
+        }
+        Path directory = Path.of(config.getDirectory());
+        failedDirectory = Files.createDirectories(directory.resolve("failed"));
+        // Appends are fsynced through sync() so concurrent requests share one fsync
+        segmentLog = new SegmentLog(directory.resolve("log"), config.getSegmentBytes(), false);
+        checkpoint = new OffsetCheckpoint(directory.resolve("flusher.offset"));
+        committedOffset = Math.max(checkpoint.read(0), segmentLog.startOffset());
+        loadFailedWrites();
+        int recovered = loadPendingWrites();
+
+        Gauge.builder("milvus.wal.backlog.bytes", this, wal -> wal.segmentLog.endOffset() - wal.committedOffset)
+                .description("Bytes of accepted upserts not yet written to Milvus")
+                .register(meterRegistry);
+        Gauge.builder("milvus.wal.writes.pending", writes,
+                        all -> all.values().stream().filter(write -> STATUS_PENDING.equals(write.getStatus())).count())
+                .description("Accepted upsert requests not yet written to Milvus")
+                .register(meterRegistry);
+        commitLag = Timer.builder("milvus.wal.commit.lag")
+                .description("Time from accepting an upsert request to writing it to Milvus")
+                .register(meterRegistry);
+        flushRetries = Counter.builder("milvus.wal.flush.retries")
+                .description("Group commits retried after Milvus failed them")
+                .register(meterRegistry);
+
+        running = true;
+        flusher = new Thread(this::flush, "milvus-wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Milvus write-ahead log started in {}, {} pending writes from offset {} of {}",
+                directory, recovered, committedOffset, segmentLog.endOffset());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        if (flusher.isAlive()) {
+            log.warn("Write-ahead log flusher still busy at shutdown; its writes will be replayed on restart");
+        }
+        segmentLog.close();
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Logs an upsert request and returns its write. Once this returns the vectors survive a
+     * restart and reach Milvus eventually.
+     *
+     * @throws IllegalStateException when the backlog waiting for Milvus is full
+     */
+    public VectorWrite append(String collectionName, List<EmbeddingVector> vectors) {
+        requireRunning();
+        long backlog = segmentLog.endOffset() - committedOffset;
+        if (backlog >= config.getMaxBacklogBytes()) {
+            throw new IllegalStateException("Write-ahead log is full: " + backlog + " bytes are waiting for Milvus");
+        }
+        LoggedWrite logged = new LoggedWrite(collectionName, LocalDateTime.now(), vectors);
+        long offset;
+        try {
+            offset = segmentLog.append(cborMapper.writeValueAsBytes(logged));
+            if (config.isFsync()) {
+                segmentLog.sync(offset);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to log upsert to " + collectionName, e);
+        }
+        // The flusher may already have picked the record up, so whichever side comes first adds it
+        VectorWrite write = track(offset, logged);
+        synchronized (newRecords) {
+            newRecords.notifyAll();
+        }
+        synchronized (write) {
+            return copy(write);
+        }
+    }
+
+    /**
+     * Status of a write. Committed writes from before a restart, or older than status-retention,
+     * are not tracked any more; an id the flusher has already passed is then reported as UNKNOWN,
+     * since it may also be one that was never issued. Failed writes are tracked across restarts
+     * for status-retention.
+     */
+    public Optional<VectorWrite> getWrite(long writeId) {
+        VectorWrite write = writes.get(writeId);
+        if (write != null) {
+            synchronized (write) {
+                return Optional.of(copy(write));
+            }
+        }
+        if (running && writeId >= 0 && writeId < committedOffset) {
+            return Optional.of(VectorWrite.builder().writeId(writeId).status(STATUS_UNKNOWN).build());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Waits until every write to the collection accepted so far has been flushed, so an
+     * operation that has to see them (an index build, a delete) does not overtake them.
+     *
+     * @throws IllegalStateException when they are still pending after the drain timeout
+     */
+    public void awaitDrained(String collectionName) throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        long barrier = segmentLog.endOffset();
+        long deadline = System.nanoTime() + config.getDrainTimeout().toNanos();
+        synchronized (commits) {
+            while (committedOffset < barrier && hasPendingWrites(collectionName, barrier)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Writes to " + collectionName + " are still pending after "
+                            + config.getDrainTimeout());
+                }
+                TimeUnit.NANOSECONDS.timedWait(commits, remaining);
+            }
+        }
+    }
+
+    /**
+     * Keeps the failed writes of the collection past status-retention until it is released, so
+     * {@link #failedWrites} still counts them when a long build completes.
+     */
+    public void retainFailedWrites(String collectionName) {
+        retainedCollections.add(collectionName);
+    }
+
+    public void releaseFailedWrites(String collectionName) {
+        retainedCollections.remove(collectionName);
+    }
+
+    /**
+     * Writes to the collection that Milvus rejected, among those still tracked, plus unreadable
+     * records, which may have been meant for it.
+     */
+    public long failedWrites(String collectionName) {
+        return writes.values().stream()
+                .filter(write -> STATUS_FAILED.equals(write.getStatus()))
+                .filter(write -> write.getCollection() == null || collectionName.equals(write.getCollection()))
+                .count();
+    }
+
+    private void flush() {
+        long backoff = config.getInitialBackoff().toMillis();
+        long lastPurge = System.currentTimeMillis();
+        List<PendingWrite> group = List.of();
+        while (running) {
+            try {
+                if (group.isEmpty()) {
+                    group = nextGroup(committedOffset);
+                    if (System.currentTimeMillis() - lastPurge > 60_000) {
+                        purgeExpiredWrites();
+                        lastPurge = System.currentTimeMillis();
+                    }
+                    if (group.isEmpty()) {
+                        continue;
+                    }
+                }
+                if (!commit(group)) {
+                    flushRetries.increment();
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, config.getMaxBackoff().toMillis());
+                    continue;
+                }
+                // Otherwise a failure would read as unknown after a restart
+                for (PendingWrite pending : group) {
+                    if (STATUS_FAILED.equals(pending.write().getStatus())) {
+                        saveFailedWrite(pending.write());
+                    }
+                }
+                commitUpTo(group.get(group.size() - 1).record().nextOffset());
+                group = List.of();
+                backoff = config.getInitialBackoff().toMillis();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Write-ahead log flush failed at offset {}, retrying: {}", committedOffset, e.getMessage(), e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * Reads requests from the position on until they hold group-commit-max-vectors, or until
+     * group-commit-linger has passed since the first one. Empty after a second without requests.
+     * A group ends before an unreadable record; once it is first, it is skipped as a failed write.
+     */
+    private List<PendingWrite> nextGroup(long position) throws IOException, InterruptedException {
+        List<PendingWrite> group = new ArrayList<>();
+        int vectors = 0;
+        long deadline = 0;
+        while (running && vectors < config.getGroupCommitMaxVectors()) {
+            SegmentLog.Record record;
+            try {
+                record = segmentLog.read(position);
+            } catch (SegmentLog.CorruptRecordException e) {
+                return unreadable(group, position, e.resumeOffset(), e);
+            }
+            if (record != null) {
+                LoggedWrite logged;
+                try {
+                    logged = cborMapper.readValue(record.payload(), LoggedWrite.class);
+                } catch (JacksonException e) {
+                    return unreadable(group, position, record.nextOffset(), e);
+                }
+                group.add(new PendingWrite(record, logged, track(record.offset(), logged)));
+                vectors += logged.vectors() != null ? logged.vectors().size() : 0;
+                position = record.nextOffset();
+                if (deadline == 0) {
+                    deadline = System.nanoTime() + config.getGroupCommitLinger().toNanos();
+                }
+                continue;
+            }
+            long wait = group.isEmpty()
+                    ? TimeUnit.SECONDS.toNanos(1)
+                    : deadline - System.nanoTime();
+            if (wait <= 0) {
+                break;
+            }
+            synchronized (newRecords) {
+                if (segmentLog.endOffset() <= position) {
+                    TimeUnit.NANOSECONDS.timedWait(newRecords, wait);
+                }
+            }
+            if (group.isEmpty() && segmentLog.endOffset() <= position) {
+                break;
+            }
+        }
+        return group;
+    }
+
+    /**
+     * Ends the group before an unreadable record. When the record is first, it is recorded as a
+     * failed write and the flusher moves past it, so one damaged record cannot hold up every
+     * write behind it.
+     */
+    private List<PendingWrite> unreadable(List<PendingWrite> group, long offset, long resumeOffset,
+                                          Exception cause) throws IOException {
+        if (!group.isEmpty()) {
+            return group;
+        }
+        log.error("❌ Skipping unreadable write-ahead log record at offset {} (resuming at {}): {}",
+                offset, resumeOffset, cause.getMessage());
+        VectorWrite write = VectorWrite.builder()
+                .writeId(offset)
+                .status(STATUS_FAILED)
+                .vectors(0)
+                .attempts(0)
+                .acceptedAt(LocalDateTime.now())
+                .errorMessage("Unreadable log record skipped: " + cause.getMessage())
+                .build();
+        writes.put(offset, write);
+        saveFailedWrite(write);
+        commitUpTo(resumeOffset);
+        return group;
+    }
+
+    private void commitUpTo(long offset) throws IOException {
+        checkpoint.write(offset);
+        synchronized (commits) {
+            committedOffset = offset;
+            commits.notifyAll();
+        }
+        segmentLog.deleteBefore(offset);
+    }
+
+    /**
+     * Upserts the unfinished writes of the group, one upsert per collection. Returns false when
+     * some have to be retried.
+     */
+    private boolean commit(List<PendingWrite> group) {
+        Map<String, List<PendingWrite>> byCollection = new LinkedHashMap<>();
+        for (PendingWrite pending : group) {
+            if (!pending.isFinished()) {
+                byCollection.computeIfAbsent(pending.logged().collection(), key -> new ArrayList<>()).add(pending);
+            }
+        }
+        boolean complete = true;
+        for (Map.Entry<String, List<PendingWrite>> entry : byCollection.entrySet()) {
+            String collectionName = entry.getKey();
+            List<PendingWrite> pendings = entry.getValue();
+            try {
+                milvusService.upsertVectors(collectionName, merge(pendings), true);
+                pendings.forEach(pending -> finish(pending, STATUS_COMMITTED, null));
+            } catch (IllegalArgumentException e) {
+                if (pendings.size() == 1) {
+                    finish(pendings.get(0), STATUS_FAILED, e.getMessage());
+                } else {
+                    // Find the rejected request(s) so they do not take the others down with them
+                    complete &= commitOneByOne(collectionName, pendings);
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Writing {} requests to {} failed, retrying: {}", pendings.size(), collectionName, e.getMessage());
+                pendings.forEach(pending -> retrying(pending, e));
+                complete = false;
+            }
+        }
+        return complete;
+    }
+
+    private boolean commitOneByOne(String collectionName, List<PendingWrite> pendings) {
+        for (int i = 0; i < pendings.size(); i++) {
+            PendingWrite pending = pendings.get(i);
+            try {
+                milvusService.upsertVectors(collectionName, pending.logged().vectors(), true);
+                finish(pending, STATUS_COMMITTED, null);
+            } catch (IllegalArgumentException e) {
+                finish(pending, STATUS_FAILED, e.getMessage());
+            } catch (Exception e) {
+                // Later requests wait, so they cannot be overwritten by this one when it is retried
+                log.warn("⚠️ Writing request {} to {} failed, retrying: {}", pending.record().offset(),
+                        collectionName, e.getMessage());
+                pendings.subList(i, pendings.size()).forEach(later -> retrying(later, e));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The vectors of several requests to one collection as a single upsert with the same outcome
+     * as sending them in order: a later vector with the same id wins, and a document that a later
+     * request sends at another sha loses the chunks of its earlier version.
+     */
+    private static List<EmbeddingVector> merge(List<PendingWrite> pendings) {
+        if (pendings.size() == 1) {
+            return pendings.get(0).logged().vectors();
+        }
+        Map<List<String>, String> latestSha = new HashMap<>();
+        for (PendingWrite pending : pendings) {
+            for (EmbeddingVector vector : vectors(pending)) {
+                List<String> document = documentKey(vector);
+                if (document != null) {
+                    latestSha.put(document, vector.getMetadata().get("sha"));
+                }
+            }
+        }
+        Map<String, EmbeddingVector> merged = new LinkedHashMap<>();
+        for (PendingWrite pending : pendings) {
+            for (EmbeddingVector vector : vectors(pending)) {
+                List<String> document = documentKey(vector);
+                if (document != null && !Objects.equals(latestSha.get(document), vector.getMetadata().get("sha"))) {
+                    continue;
+                }
+                merged.put(vector.getId(), vector);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private static List<EmbeddingVector> vectors(PendingWrite pending) {
+        List<EmbeddingVector> vectors = pending.logged().vectors();
+        return vectors != null ? vectors.stream().filter(Objects::nonNull).toList() : List.of();
+    }
+
+    private static List<String> documentKey(EmbeddingVector vector) {
+        Map<String, String> metadata = vector.getMetadata();
+        if (metadata == null || metadata.get("repository") == null
+                || metadata.get("file_path") == null || metadata.get("sha") == null) {
+            return null;
+        }
+        return List.of(metadata.get("repository"), metadata.get("file_path"));
+    }
+
+    private VectorWrite track(long offset, LoggedWrite logged) {
+        return writes.computeIfAbsent(offset, id -> VectorWrite.builder()
+                .writeId(id)
+                .collection(logged.collection())
+                .status(STATUS_PENDING)
+                .vectors(logged.vectors() != null ? logged.vectors().size() : 0)
+                .attempts(0)
+                .acceptedAt(logged.acceptedAt())
+                .build());
+    }
+
+    private void finish(PendingWrite pending, String status, String error) {
+        VectorWrite write = pending.write();
+        synchronized (write) {
+            write.setStatus(status);
+            write.setAttempts(write.getAttempts() + 1);
+            write.setErrorMessage(error);
+            if (STATUS_COMMITTED.equals(status)) {
+                write.setCommittedAt(LocalDateTime.now());
+                commitLag.record(Duration.between(write.getAcceptedAt(), write.getCommittedAt()));
+            }
+        }
+        if (STATUS_FAILED.equals(status)) {
+            log.error("❌ Milvus rejected write {} ({} vectors to {}): {}", write.getWriteId(), write.getVectors(),
+                    write.getCollection(), error);
+        }
+    }
+
+    private void retrying(PendingWrite pending, Exception e) {
+        VectorWrite write = pending.write();
+        synchronized (write) {
+            write.setAttempts(write.getAttempts() + 1);
+            write.setErrorMessage(e.getMessage());
+        }
+    }
+
+    private boolean hasPendingWrites(String collectionName, long before) {
+        return writes.values().stream().anyMatch(write -> write.getWriteId() < before
+                && collectionName.equals(write.getCollection()) && STATUS_PENDING.equals(write.getStatus()));
+    }
+
+    private int loadPendingWrites() throws IOException {
+        int count = 0;
+        long position = committedOffset;
+        while (true) {
+            SegmentLog.Record record;
+            try {
+                record = segmentLog.read(position);
+            } catch (SegmentLog.CorruptRecordException e) {
+                // The flusher records it as failed when it gets there
+                log.warn("Write-ahead log has an unreadable record: {}", e.getMessage());
+                position = e.resumeOffset();
+                continue;
+            }
+            if (record == null) {
+                return count;
+            }
+            try {
+                track(record.offset(), cborMapper.readValue(record.payload(), LoggedWrite.class));
+                count++;
+            } catch (JacksonException e) {
+                log.warn("Write-ahead log record at offset {} cannot be decoded: {}", record.offset(), e.getMessage());
+            }
+            position = record.nextOffset();
+        }
+    }
+
+    private void loadFailedWrites() throws IOException {
+        try (Stream<Path> files = Files.list(failedDirectory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".json")).toList()) {
+                VectorWrite write = jsonMapper.readValue(file.toFile(), VectorWrite.class);
+                writes.put(write.getWriteId(), write);
+            }
+        }
+    }
+
+    private void saveFailedWrite(VectorWrite write) throws IOException {
+        byte[] content;
+        synchronized (write) {
+            content = jsonMapper.writeValueAsBytes(write);
+        }
+        DurableFiles.replace(failedFile(write.getWriteId()), content);
+    }
+
+    private void purgeExpiredWrites() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(config.getStatusRetention());
+        writes.values().removeIf(write -> {
+            synchronized (write) {
+                if (!write.isFinished() || write.getAcceptedAt() == null || write.getAcceptedAt().isAfter(cutoff)) {
+                    return false;
+                }
+                if (STATUS_FAILED.equals(write.getStatus()) && (write.getCollection() == null
+                        ? !retainedCollections.isEmpty() : retainedCollections.contains(write.getCollection()))) {
+                    return false;
+                }
+                if (STATUS_FAILED.equals(write.getStatus())) {
+                    try {
+                        Files.deleteIfExists(failedFile(write.getWriteId()));
+                    } catch (IOException e) {
+                        log.warn("Failed to delete expired failed write {}: {}", write.getWriteId(), e.getMessage());
+                    }
+                }
+                return true;
+            }
+        });
+    }
+
+    private Path failedFile(long writeId) {
+        return failedDirectory.resolve(writeId + ".json");
+    }
+
+    private void requireRunning() {
+        if (!running) {
+            throw new IllegalStateException("Milvus write-ahead log is disabled");
+        }
+    }
+
+    private static VectorWrite copy(VectorWrite write) {
+        return write.toBuilder().build();
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A request read back from the log, with the status it reports to callers.
+     */
+    private record PendingWrite(SegmentLog.Record record, LoggedWrite logged, VectorWrite write) {
+
+        boolean isFinished() {
+            synchronized (write) {
+                return write.isFinished();
+            }
+        }
+    }
+}
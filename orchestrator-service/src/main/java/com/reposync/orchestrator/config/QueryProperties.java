@@ -0,0 +1,30 @@
+package com.reposync.orchestrator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for /api/query: how many texts one request may carry, how many of them are embedded
+ * and searched concurrently, and the cache of query embeddings.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "query")
+public class QueryProperties {
+
+    private int defaultTopK = 10;
+    private int maxQueries = 16;
+    private int maxConcurrency = 8;
+    private Duration timeout = Duration.ofSeconds(10);
+    private EmbeddingCache embeddingCache = new EmbeddingCache();
+
+    @Data
+    public static class EmbeddingCache {
+        // Embeddings of the same text only change with the model, so entries can live long
+        private Duration ttl = Duration.ofHours(6);
+        private int maxSize = 10_000;
+    }
+}
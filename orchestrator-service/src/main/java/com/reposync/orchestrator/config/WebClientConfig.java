@@ -8,6 +8,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.netty.http.client.HttpClient;
@@ -87,10 +89,19 @@ public class WebClientConfig {
 
     /**
      * Configure exchange strategies with increased buffer size for large payloads.
+     * CBOR codecs are registered explicitly (WebFlux does not add Jackson CBOR by default) so
+     * services can exchange chunks and vectors in the binary wire format.
      */
     private ExchangeStrategies createExchangeStrategies() {
+        int maxInMemorySize = 16 * 1024 * 1024; // 16MB
         return ExchangeStrategies.builder()
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024 * 1024)) // 16MB
+                .codecs(configurer -> {
+                    configurer.defaultCodecs().maxInMemorySize(maxInMemorySize);
+                    Jackson2CborDecoder cborDecoder = new Jackson2CborDecoder();
+                    cborDecoder.setMaxInMemorySize(maxInMemorySize);
+                    configurer.customCodecs().register(cborDecoder);
+                    configurer.customCodecs().register(new Jackson2CborEncoder());
+                })
                 .build();
     }
 
@@ -53,6 +53,23 @@ public class OrchestratorController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Blue/green full rebuild: everything is re-embedded into a new collection that replaces the
+     * current one behind the collection alias only once it is indexed and loaded.
+     */
+    @PostMapping("/reindex")
+    public ResponseEntity<SyncJobResult> triggerReindex() {
+        log.info("Reindex triggered via API");
+        SyncJobResult result = workflowOrchestrator.executeReindexWorkflow();
+
+        if ("FAILED".equals(result.getStatus())) {
+            log.error("Reindex failed: {}", result.getErrorMessage());
+            return ResponseEntity.internalServerError().body(result);
+        }
+
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/preflight")
     public ResponseEntity<Map<String, Object>> preflightCheck() {
         log.info("Running preflight connectivity check...");
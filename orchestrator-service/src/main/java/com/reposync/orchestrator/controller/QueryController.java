@@ -0,0 +1,68 @@
+package com.reposync.orchestrator.controller;
+
+import com.reposync.common.dto.QueryResult;
+import com.reposync.orchestrator.service.SemanticQueryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class QueryController {
+
+    private final SemanticQueryService semanticQueryService;
+
+    /**
+     * Semantic search over the synced documents. Repeat text for several queries in one call;
+     * repository and fileType narrow the results, filter takes a raw Milvus expression.
+     */
+    @GetMapping("/query")
+    public Mono<ResponseEntity<List<QueryResult>>> query(@RequestParam List<String> text,
+                                                         @RequestParam(required = false) Integer topK,
+                                                         @RequestParam(required = false) String repository,
+                                                         @RequestParam(required = false) String fileType,
+                                                         @RequestParam(required = false) String filter) {
+        List<String> conditions = new ArrayList<>();
+        if (repository != null && !repository.isBlank()) {
+            conditions.add(metadataEquals("repository", repository));
+        }
+        if (fileType != null && !fileType.isBlank()) {
+            conditions.add(metadataEquals("file_type", fileType));
+        }
+        if (filter != null && !filter.isBlank()) {
+            conditions.add("(" + filter + ")");
+        }
+        String expression = conditions.isEmpty() ? null : String.join(" and ", conditions);
+
+        return semanticQueryService.query(text, topK, expression)
+                .map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.warn("Rejected query: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest().build());
+                })
+                .onErrorResume(TimeoutException.class, e -> {
+                    log.warn("Query timed out: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build());
+                })
+                .onErrorResume(e -> {
+                    log.error("Query failed: {}", e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    private static String metadataEquals(String key, String value) {
+        return "metadata[\"" + key + "\"] == \"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,184 @@
+package com.reposync.orchestrator.service;
+
+import com.reposync.common.dto.EmbeddingVector;
+import com.reposync.common.dto.QueryResult;
+import com.reposync.common.dto.SearchHit;
+import com.reposync.common.dto.SearchRequest;
+import com.reposync.common.dto.SearchResponse;
+import com.reposync.common.dto.TextChunk;
+import com.reposync.common.util.TtlLruCache;
+import com.reposync.common.util.VectorQuantizer;
+import com.reposync.orchestrator.config.QueryProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers natural-language queries end to end: embeds each text through the embedding service
+ * (skipped when the embedding is cached) and searches Milvus through milvus-service. Texts of a
+ * multi-query request run concurrently; embed, search and total latency are recorded as
+ * histograms so the slow stage is visible.
+ */
+@Slf4j
+@Service
+public class SemanticQueryService {
+
+    private final WebClient embeddingWebClient;
+    private final WebClient milvusWebClient;
+    private final QueryProperties properties;
+    private final TtlLruCache<String, float[]> embeddingCache;
+    private final Timer embedTimer;
+    private final Timer searchTimer;
+    private final Timer totalTimer;
+
+    @Value("${milvus.collection-name}")
+    private String collectionName;
+
+    public SemanticQueryService(@Qualifier("embeddingWebClient") WebClient embeddingWebClient,
+                                @Qualifier("milvusWebClient") WebClient milvusWebClient,
+                                QueryProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.embeddingWebClient = embeddingWebClient;
+        this.milvusWebClient = milvusWebClient;
+        this.properties = properties;
+        this.embeddingCache = new TtlLruCache<>(properties.getEmbeddingCache().getMaxSize(),
+                properties.getEmbeddingCache().getTtl());
+        this.embedTimer = stageTimer(meterRegistry, "embed");
+        this.searchTimer = stageTimer(meterRegistry, "search");
+        this.totalTimer = stageTimer(meterRegistry, "total");
+        FunctionCounter.builder("orchestrator.query.embedding.cache", embeddingCache, TtlLruCache::hitCount)
+                .description("Query embedding cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("orchestrator.query.embedding.cache", embeddingCache, TtlLruCache::missCount)
+                .description("Query embedding cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs each text as its own query and returns the results in the order of the texts.
+     *
+     * @param filter Milvus filter expression on the chunk metadata, or null
+     */
+    public Mono<List<QueryResult>> query(List<String> texts, Integer topK, String filter) {
+        List<String> queries = texts == null ? List.of() : texts.stream()
+                .filter(text -> text != null && !text.isBlank())
+                .map(String::strip)
+                .toList();
+        if (queries.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("At least one non-blank query text is required"));
+        }
+        if (queries.size() > properties.getMaxQueries()) {
+            return Mono.error(new IllegalArgumentException("At most " + properties.getMaxQueries()
+                    + " query texts per request: " + queries.size()));
+        }
+        int k = topK != null ? topK : properties.getDefaultTopK();
+
+        return Flux.fromIterable(queries)
+                .flatMapSequential(text -> queryOne(text, k, filter), properties.getMaxConcurrency())
+                .collectList()
+                .timeout(properties.getTimeout());
+    }
+
+    private Mono<QueryResult> queryOne(String text, int topK, String filter) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            String cacheKey = collectionName + '\u0000' + text;
+            float[] cached = embeddingCache.get(cacheKey);
+            Mono<float[]> embedding = cached != null
+                    ? Mono.just(cached)
+                    : timed(embed(text), embedTimer).doOnNext(vector -> embeddingCache.put(cacheKey, vector));
+
+            return embedding
+                    .flatMap(vector -> timed(search(vector, topK, filter), searchTimer))
+                    .map(response -> {
+                        long took = System.nanoTime() - start;
+                        totalTimer.record(took, TimeUnit.NANOSECONDS);
+                        List<SearchHit> hits = response.getResults() == null || response.getResults().isEmpty()
+                                ? List.of() : response.getResults().get(0);
+                        return QueryResult.builder()
+                                .query(text)
+                                .hits(hits)
+                                .embeddingCached(cached != null)
+                                .searchCached(response.isCached())
+                                .tookMs(TimeUnit.NANOSECONDS.toMillis(took))
+                                .build();
+                    });
+        });
+    }
+
+    private Mono<float[]> embed(String text) {
+        TextChunk chunk = TextChunk.builder()
+                .chunkId("query")
+                .content(text)
+                .metadata(Map.of())
+                .build();
+        // The collection routes the query to the same provider and model its documents were embedded with.
+        // Single small payloads go as JSON; the CBOR wire format only pays off for batches.
+        return embeddingWebClient.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/api/embedding/generate")
+                        .queryParam("collection", collectionName)
+                        .build())
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(chunk)
+                .retrieve()
+                .onStatus(status -> status.isError(), response ->
+                        response.bodyToMono(String.class)
+                                .map(body -> new RuntimeException("Embedding service error: " + response.statusCode() + " - " + body)))
+                .bodyToMono(EmbeddingVector.class)
+                .map(VectorQuantizer::decode)
+                .map(EmbeddingVector::getVector);
+    }
+
+    private Mono<SearchResponse> search(float[] vector, int topK, String filter) {
+        SearchRequest request = SearchRequest.builder()
+                .collectionName(collectionName)
+                .vector(vector)
+                .topK(topK)
+                .filter(filter)
+                .build();
+        return milvusWebClient.post()
+                .uri("/api/milvus/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .retrieve()
+                .onStatus(status -> status.value() == 400, response ->
+                        Mono.just(new IllegalArgumentException("Search request rejected by milvus-service")))
+                .onStatus(status -> status.isError(), response ->
+                        response.bodyToMono(String.class)
+                                .defaultIfEmpty("")
+                                .map(body -> new RuntimeException("Milvus service error: " + response.statusCode() + " - " + body)))
+                .bodyToMono(SearchResponse.class);
+    }
+
+    private static <T> Mono<T> timed(Mono<T> mono, Timer timer) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono.doOnTerminate(() -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("orchestrator.query.stage")
+                .description("Semantic query latency per stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -6,13 +6,24 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -36,6 +47,41 @@ public class WorkflowOrchestrator {
     @Value("${azure.openai.vector-dimension:1536}")
     private int vectorDimension;
 
+    // cbor sends chunks and vectors in binary (float32 blocks); json is the fallback
+    @Value("${services.wire-format:cbor}")
+    private String wireFormat;
+
+    // Streams chunks through /generate/stream and upserts vectors while later batches are still embedding
+    @Value("${services.embedding.streaming:false}")
+    private boolean streamEmbeddings;
+
+    @Value("${services.embedding.streaming-upsert-batch-size:256}")
+    private int streamingUpsertBatchSize;
+
+    @Value("${services.embedding.streaming-upsert-concurrency:2}")
+    private int streamingUpsertConcurrency;
+
+    // Submits chunks to the embedding service's disk-backed job queue and polls for the result
+    @Value("${services.embedding.queued:false}")
+    private boolean queueEmbeddings;
+
+    @Value("${services.embedding.queue-poll-interval:5s}")
+    private Duration queuePollInterval;
+
+    @Value("${services.embedding.queue-timeout:2h}")
+    private Duration queueTimeout;
+
+    // Reindex loads the new collection through milvus-service's bulk import instead of upserts
+    @Value("${services.milvus.bulk-import-reindex:false}")
+    private boolean bulkImportReindex;
+
+    // Upserts accepted into milvus-service's write-ahead log are polled until Milvus has them
+    @Value("${services.milvus.write-poll-interval:1s}")
+    private Duration writePollInterval;
+
+    @Value("${services.milvus.write-timeout:30m}")
+    private Duration writeTimeout;
+
     public WorkflowOrchestrator(
             @Qualifier("githubWebClient") WebClient githubWebClient,
             @Qualifier("processorWebClient") WebClient processorWebClient,
@@ -55,11 +101,89 @@ public class WorkflowOrchestrator {
 
     @Retry(name = "syncWorkflow", fallbackMethod = "syncWorkflowFallback")
     public SyncJobResult executeSyncWorkflow() {
+        return runSyncWorkflow(collectionName, false);
+    }
+
+    /**
+     * Full rebuild without a degraded index for readers: milvus-service creates a new versioned
+     * collection, the whole workflow writes into it, and only when that succeeded is it indexed,
+     * loaded and put behind the collection alias. A failed or empty run drops the new collection
+     * and leaves the current one in place.
+     */
+    public SyncJobResult executeReindexWorkflow() {
+        log.info("=== Starting reindex of collection alias {} ===", collectionName);
+        ReindexStatus reindex;
+        try {
+            reindex = milvusWebClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/milvus/reindex")
+                            .queryParam("alias", collectionName)
+                            .queryParam("dimension", vectorDimension)
+                            .build())
+                    .retrieve()
+                    .onStatus(status -> !status.is2xxSuccessful(),
+                            response -> response.bodyToMono(String.class)
+                                    .defaultIfEmpty("")
+                                    .map(body -> new RuntimeException("Milvus service error starting reindex: " + response.statusCode() + " - " + body)))
+                    .bodyToMono(ReindexStatus.class)
+                    .block();
+        } catch (Exception e) {
+            log.error("Failed to start reindex of {}: {}", collectionName, e.getMessage(), e);
+            return buildResult(UUID.randomUUID().toString(), LocalDateTime.now(), 0, 0, 0, 0, "FAILED",
+                    "Failed to start reindex: " + e.getMessage());
+        }
+
+        log.info("Rebuilding {} into {}", collectionName, reindex.getTargetCollection());
+        SyncJobResult result = runSyncWorkflow(reindex.getTargetCollection(), bulkImportReindex);
+
+        if (!"SUCCESS".equals(result.getStatus()) || result.getVectorsStored() == null || result.getVectorsStored() == 0) {
+            log.error("Reindex of {} did not produce vectors, aborting and keeping the current collection", collectionName);
+            finishReindex(HttpMethod.DELETE, "/api/milvus/reindex/{alias}");
+            if ("SUCCESS".equals(result.getStatus())) {
+                result.setStatus("FAILED");
+                result.setErrorMessage("Reindex produced no vectors; current collection kept");
+            }
+            return result;
+        }
+
+        ReindexStatus switched = finishReindex(HttpMethod.POST, "/api/milvus/reindex/{alias}/complete");
+        if (switched == null || !"SWITCHED".equals(switched.getStatus())) {
+            // The new collection would otherwise be left behind; the current one stays in place
+            log.error("Reindex of {} could not be completed, aborting and keeping the current collection", collectionName);
+            finishReindex(HttpMethod.DELETE, "/api/milvus/reindex/{alias}");
+            result.setStatus("FAILED");
+            result.setErrorMessage("Reindex built " + reindex.getTargetCollection() + " but the alias switch failed"
+                    + (switched != null && switched.getErrorMessage() != null ? ": " + switched.getErrorMessage() : ""));
+            return result;
+        }
+        log.info("=== Reindex complete: {} now points to {} ===", collectionName, switched.getTargetCollection());
+        return result;
+    }
+
+    private ReindexStatus finishReindex(HttpMethod method, String path) {
+        try {
+            return milvusWebClient.method(method)
+                    .uri(path, collectionName)
+                    .exchangeToMono(response -> response.bodyToMono(ReindexStatus.class))
+                    .block();
+        } catch (Exception e) {
+            log.error("Reindex call {} {} failed: {}", method, path, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Runs the sync, writing vectors into milvusCollection. Embedding requests keep using the
+     * configured collection name, which is what provider routing is keyed on.
+     *
+     * @param bulkImport load all vectors with one bulk import; only for an empty collection
+     */
+    private SyncJobResult runSyncWorkflow(String milvusCollection, boolean bulkImport) {
         String jobId = UUID.randomUUID().toString();
         LocalDateTime startTime = LocalDateTime.now();
 
         log.info("=== Starting sync workflow - Job ID: {} ===", jobId);
-        log.info("Organization: {}, Filter: {}, Collection: {}", organization, filterKeyword, collectionName);
+        log.info("Organization: {}, Filter: {}, Collection: {}", organization, filterKeyword, milvusCollection);
 
         try {
             // Step 1: Fetch repositories from GitHub
@@ -126,11 +250,20 @@ public class WorkflowOrchestrator {
             }
 
             if (chunks.isEmpty()) {
+                deleteStaleChunks(milvusCollection, allDocuments, chunks);
                 log.info("No chunks created - completing with SUCCESS");
                 return buildResult(jobId, startTime, repositories.size(), allDocuments.size(),
                         0, 0, "SUCCESS", "No chunks created");
             }
 
+            if (streamEmbeddings && !bulkImport) {
+                int stored = streamEmbeddingsToMilvus(chunks, milvusCollection);
+                deleteStaleChunks(milvusCollection, allDocuments, chunks);
+                log.info("=== Sync workflow completed successfully - Job ID: {} ===", jobId);
+                return buildResult(jobId, startTime, repositories.size(), allDocuments.size(),
+                        chunks.size(), stored, "SUCCESS", null);
+            }
+
             // Step 4: Generate embeddings
             log.info("Step 4: Generating embeddings for {} chunks", chunks.size());
             List<EmbeddingVector> vectors = null;
@@ -145,11 +278,11 @@ public class WorkflowOrchestrator {
             }
 
             // Step 5: Ensure Milvus collection exists
-            log.info("Step 5: Ensuring Milvus collection exists: {}", collectionName);
+            log.info("Step 5: Ensuring Milvus collection exists: {}", milvusCollection);
             long step5Start = System.currentTimeMillis();
             try {
                 log.info("Calling Milvus service to check/create collection...");
-                ensureCollection();
+                ensureCollection(milvusCollection);
                 long step5Duration = System.currentTimeMillis() - step5Start;
                 log.info("✓ Step 5 complete - Collection ready (took {}ms)", step5Duration);
             } catch (Exception e) {
@@ -167,8 +300,14 @@ public class WorkflowOrchestrator {
             log.info("Step 6: Upserting {} vectors to Milvus", vectors.size());
             long step6Start = System.currentTimeMillis();
             try {
-                log.info("Calling Milvus service to upsert {} vectors...", vectors.size());
-                upsertVectors(vectors);
+                if (bulkImport) {
+                    log.info("Calling Milvus service to bulk import {} vectors...", vectors.size());
+                    bulkImportVectors(milvusCollection, vectors);
+                } else {
+                    log.info("Calling Milvus service to upsert {} vectors...", vectors.size());
+                    VectorWrite write = upsertVectors(milvusCollection, vectors);
+                    awaitWrites(write != null ? List.of(write) : List.of());
+                }
                 long step6Duration = System.currentTimeMillis() - step6Start;
                 log.info("✓ Step 6 complete - Vectors upserted (took {}ms)", step6Duration);
             } catch (Exception e) {
@@ -182,6 +321,8 @@ public class WorkflowOrchestrator {
                 throw new RuntimeException("Step 6 failed: " + e.getMessage(), e);
             }
 
+            deleteStaleChunks(milvusCollection, allDocuments, chunks);
+
             LocalDateTime endTime = LocalDateTime.now();
             log.info("=== Sync workflow completed successfully - Job ID: {} ===", jobId);
 
@@ -243,6 +384,7 @@ public class WorkflowOrchestrator {
 
             List<DocumentContent> docs = githubWebClient.get()
                     .uri("/api/github/documents/{owner}/{repo}", owner, repo)
+                    .accept(wireMediaType(), MediaType.APPLICATION_JSON)
                     .retrieve()
                     .onStatus(status -> !status.is2xxSuccessful(),
                             response -> response.bodyToMono(String.class)
@@ -263,6 +405,8 @@ public class WorkflowOrchestrator {
 
             List<TextChunk> chunks = processorWebClient.post()
                     .uri("/api/processor/chunk/batch")
+                    .contentType(wireMediaType())
+                    .accept(wireMediaType(), MediaType.APPLICATION_JSON)
                     .bodyValue(documents)
                     .retrieve()
                     .onStatus(status -> !status.is2xxSuccessful(),
@@ -281,11 +425,20 @@ public class WorkflowOrchestrator {
     }
 
     private List<EmbeddingVector> generateEmbeddings(List<TextChunk> chunks) {
+        if (queueEmbeddings) {
+            return generateEmbeddingsViaQueue(chunks);
+        }
         try {
             log.info("Sending {} chunks to embedding service for embedding generation", chunks.size());
 
+            // The collection lets the embedding service route to the provider configured for it
             List<EmbeddingVector> vectors = embeddingWebClient.post()
-                    .uri("/api/embedding/generate/batch")
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/embedding/generate/batch")
+                            .queryParam("collection", collectionName)
+                            .build())
+                    .contentType(wireMediaType())
+                    .accept(wireMediaType(), MediaType.APPLICATION_JSON)
                     .bodyValue(chunks)
                     .retrieve()
                     .onStatus(status -> !status.is2xxSuccessful(),
@@ -303,53 +456,149 @@ public class WorkflowOrchestrator {
         }
     }
 
-    private void ensureCollection() {
+    /**
+     * Hands the chunks to the embedding service's work queue and waits for the job, so a long
+     * embedding run is bounded by queue-timeout rather than by a single HTTP request, and
+     * survives an embedding service restart.
+     */
+    private List<EmbeddingVector> generateEmbeddingsViaQueue(List<TextChunk> chunks) {
+        try {
+            EmbeddingJob job = embeddingWebClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/embedding/jobs")
+                            .queryParam("collection", collectionName)
+                            .build())
+                    .contentType(wireMediaType())
+                    .accept(wireMediaType(), MediaType.APPLICATION_JSON)
+                    .bodyValue(chunks)
+                    .retrieve()
+                    .onStatus(status -> !status.is2xxSuccessful(),
+                            response -> response.bodyToMono(String.class)
+                                    .map(body -> new RuntimeException("Embedding service error: " + response.statusCode() + " - " + body)))
+                    .bodyToMono(EmbeddingJob.class)
+                    .block();
+            if (job == null) {
+                throw new RuntimeException("Embedding service returned no job");
+            }
+            log.info("Queued {} chunks as embedding job {}", chunks.size(), job.getJobId());
+
+            long deadline = System.currentTimeMillis() + queueTimeout.toMillis();
+            while (!job.isFinished()) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new RuntimeException("Embedding job " + job.getJobId() + " did not finish within " + queueTimeout);
+                }
+                Thread.sleep(queuePollInterval.toMillis());
+                job = embeddingWebClient.get()
+                        .uri("/api/embedding/jobs/{jobId}", job.getJobId())
+                        .retrieve()
+                        .bodyToMono(EmbeddingJob.class)
+                        .block();
+                log.info("Embedding job {}: {} ({}/{} batches)", job.getJobId(), job.getStatus(),
+                        job.getCompletedBatches(), job.getTotalBatches());
+            }
+            if ("FAILED".equals(job.getStatus())) {
+                throw new RuntimeException("Embedding job " + job.getJobId() + " failed: " + job.getErrorMessage());
+            }
+
+            List<EmbeddingVector> vectors = embeddingWebClient.get()
+                    .uri("/api/embedding/jobs/{jobId}/vectors", job.getJobId())
+                    .accept(wireMediaType(), MediaType.APPLICATION_JSON)
+                    .retrieve()
+                    .bodyToMono(new ParameterizedTypeReference<List<EmbeddingVector>>() {})
+                    .block();
+            log.info("Embedding job {} returned {} vectors ({} chunks failed)", job.getJobId(),
+                    vectors != null ? vectors.size() : 0, job.getFailedChunks());
+            return vectors != null ? vectors : new ArrayList<>();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for embedding job", e);
+        } catch (Exception e) {
+            log.error("Failed to generate embeddings via embedding job queue: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to generate embeddings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Steps 4-6 as a pipeline: the collection is ensured first, then vectors are upserted in
+     * windows as the embedding service streams them back, so Milvus writes overlap with the
+     * remaining embedding work. Returns the number of vectors stored.
+     */
+    private int streamEmbeddingsToMilvus(List<TextChunk> chunks, String milvusCollection) {
+        log.info("Step 4: Ensuring Milvus collection exists: {}", milvusCollection);
+        try {
+            ensureCollection(milvusCollection);
+        } catch (Exception e) {
+            log.error("✗ Step 4 FAILED - Error ensuring collection: {}", e.getMessage(), e);
+            throw new RuntimeException("Step 4 failed: " + e.getMessage(), e);
+        }
+
+        log.info("Step 5: Streaming {} chunks through the embedding service into Milvus", chunks.size());
+        long start = System.currentTimeMillis();
+        List<VectorWrite> writes = Collections.synchronizedList(new ArrayList<>());
         try {
-            log.info("Checking if collection '{}' exists via Milvus service", collectionName);
+            Integer stored = embeddingWebClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/embedding/generate/stream")
+                            .queryParam("collection", collectionName)
+                            .build())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .body(Flux.fromIterable(chunks), TextChunk.class)
+                    .retrieve()
+                    .onStatus(status -> !status.is2xxSuccessful(),
+                            response -> response.bodyToMono(String.class)
+                                    .map(body -> new RuntimeException("Embedding service error: " + response.statusCode() + " - " + body)))
+                    .bodyToFlux(EmbeddingVector.class)
+                    .buffer(streamingUpsertBatchSize)
+                    .flatMap(window -> Mono.fromCallable(() -> {
+                                VectorWrite write = upsertVectors(milvusCollection, window);
+                                if (write != null) {
+                                    writes.add(write);
+                                }
+                                return window.size();
+                            }).subscribeOn(Schedulers.boundedElastic()),
+                            streamingUpsertConcurrency)
+                    .reduce(0, Integer::sum)
+                    .block();
+            // Windows are only stored once the write-ahead log got them into Milvus
+            awaitWrites(writes);
 
-            Boolean exists = milvusWebClient.get()
-                    .uri("/api/milvus/collection/{collectionName}/exists", collectionName)
+            int count = stored != null ? stored : 0;
+            log.info("✓ Step 5 complete - Streamed {} vectors into Milvus (took {}ms)",
+                    count, System.currentTimeMillis() - start);
+            return count;
+        } catch (Exception e) {
+            log.error("✗ Step 5 FAILED - Error streaming embeddings after {}ms: {}",
+                    System.currentTimeMillis() - start, e.getMessage(), e);
+            throw new RuntimeException("Step 5 failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void ensureCollection(String milvusCollection) {
+        try {
+            // create is a no-op for an existing collection and answers from milvus-service's
+            // metadata cache, so one call replaces the separate exists check
+            log.info("Ensuring collection '{}' (dimension {}) via Milvus service", milvusCollection, vectorDimension);
+            String createResponse = milvusWebClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/milvus/collection/create")
+                            .queryParam("collectionName", milvusCollection)
+                            .queryParam("dimension", vectorDimension)
+                            .build())
                     .retrieve()
                     .onStatus(status -> !status.is2xxSuccessful(),
                             response -> response.bodyToMono(String.class)
                                     .map(body -> {
-                                        log.error("Milvus collection check failed with status {}: {}",
+                                        log.error("Milvus collection create failed with status {}: {}",
                                                 response.statusCode(), body);
-                                        return new RuntimeException("Milvus service error checking collection: " +
+                                        return new RuntimeException("Milvus service error creating collection: " +
                                                 response.statusCode() + " - " + body);
                                     }))
-                    .bodyToMono(Boolean.class)
-                    .doOnError(error -> log.error("Milvus collection check error: {} - {}",
+                    .bodyToMono(String.class)
+                    .doOnError(error -> log.error("Milvus collection create error: {} - {}",
                             error.getClass().getSimpleName(), error.getMessage()))
                     .block();
-
-            log.info("Collection '{}' exists check result: {}", collectionName, exists);
-
-            if (exists == null || !exists) {
-                log.info("Collection '{}' does not exist, creating it with dimension {}", collectionName, vectorDimension);
-                String createResponse = milvusWebClient.post()
-                        .uri(uriBuilder -> uriBuilder
-                                .path("/api/milvus/collection/create")
-                                .queryParam("collectionName", collectionName)
-                                .queryParam("dimension", vectorDimension)
-                                .build())
-                        .retrieve()
-                        .onStatus(status -> !status.is2xxSuccessful(),
-                                response -> response.bodyToMono(String.class)
-                                        .map(body -> {
-                                            log.error("Milvus collection create failed with status {}: {}",
-                                                    response.statusCode(), body);
-                                            return new RuntimeException("Milvus service error creating collection: " +
-                                                    response.statusCode() + " - " + body);
-                                        }))
-                        .bodyToMono(String.class)
-                        .doOnError(error -> log.error("Milvus collection create error: {} - {}",
-                                error.getClass().getSimpleName(), error.getMessage()))
-                        .block();
-                log.info("Collection '{}' created successfully, response: {}", collectionName, createResponse);
-            } else {
-                log.info("Collection '{}' already exists", collectionName);
-            }
+            log.info("Collection '{}' ready, response: {}", milvusCollection, createResponse);
         } catch (Exception e) {
             String errorType = e.getClass().getSimpleName();
             String errorMsg = e.getMessage();
@@ -364,40 +613,57 @@ public class WorkflowOrchestrator {
         }
     }
 
-    private void upsertVectors(List<EmbeddingVector> vectors) {
+    /**
+     * Sends the vectors to milvus-service. Returns the write when it was accepted into the
+     * write-ahead log (202) and still has to reach Milvus, or null when it was written directly.
+     */
+    private VectorWrite upsertVectors(String milvusCollection, List<EmbeddingVector> vectors) {
         try {
-            log.info("Upserting {} vectors to collection '{}' via Milvus service", vectors.size(), collectionName);
+            log.info("Upserting {} vectors to collection '{}' via Milvus service", vectors.size(), milvusCollection);
 
             // Log first vector details for debugging
             if (!vectors.isEmpty()) {
                 EmbeddingVector first = vectors.get(0);
                 log.debug("First vector: id={}, dimension={}, metadata={}",
                         first.getId(),
-                        first.getVector() != null ? first.getVector().size() : 0,
+                        first.dimension(),
                         first.getMetadata() != null ? first.getMetadata().keySet() : "null");
             }
 
-            String response = milvusWebClient.post()
+            VectorWrite write = milvusWebClient.post()
                     .uri(uriBuilder -> uriBuilder
                             .path("/api/milvus/vectors/upsert")
-                            .queryParam("collectionName", collectionName)
+                            .queryParam("collectionName", milvusCollection)
                             .build())
+                    .contentType(wireMediaType())
+                    .accept(MediaType.APPLICATION_JSON)
                     .bodyValue(vectors)
-                    .retrieve()
-                    .onStatus(status -> !status.is2xxSuccessful(),
-                            clientResponse -> clientResponse.bodyToMono(String.class)
-                                    .map(body -> {
-                                        log.error("Milvus upsert failed with status {}: {}",
-                                                clientResponse.statusCode(), body);
-                                        return new RuntimeException("Milvus service error upserting vectors: " +
-                                                clientResponse.statusCode() + " - " + body);
-                                    }))
-                    .bodyToMono(String.class)
+                    .exchangeToMono(clientResponse -> {
+                        // 202 with a write when milvus-service logged them for its background flusher
+                        if (clientResponse.statusCode().value() == HttpStatus.ACCEPTED.value()) {
+                            return clientResponse.bodyToMono(VectorWrite.class);
+                        }
+                        return clientResponse.bodyToMono(String.class)
+                                .defaultIfEmpty("")
+                                .flatMap(body -> {
+                                    if (clientResponse.statusCode().is2xxSuccessful()) {
+                                        log.info("Milvus service stored {} vectors, response: {}", vectors.size(), body);
+                                        return Mono.empty();
+                                    }
+                                    log.error("Milvus upsert failed with status {}: {}",
+                                            clientResponse.statusCode(), body);
+                                    return Mono.error(new RuntimeException("Milvus service error upserting vectors: " +
+                                            clientResponse.statusCode() + " - " + body));
+                                });
+                    })
                     .doOnError(error -> log.error("Milvus upsert error: {} - {}",
                             error.getClass().getSimpleName(), error.getMessage()))
                     .block();
 
-            log.info("Successfully upserted {} vectors, response: {}", vectors.size(), response);
+            if (write != null) {
+                log.info("Milvus service accepted {} vectors as write {}", vectors.size(), write.getWriteId());
+            }
+            return write;
         } catch (Exception e) {
             String errorType = e.getClass().getSimpleName();
             String errorMsg = e.getMessage();
@@ -415,6 +681,130 @@ public class WorkflowOrchestrator {
         }
     }
 
+    /**
+     * Polls the writes until Milvus has committed them all, so a sync is not reported as
+     * successful while vectors it sent may still be rejected.
+     *
+     * @throws RuntimeException when a write failed, cannot be traced any more or is still
+     *                          pending after write-timeout
+     */
+    private void awaitWrites(List<VectorWrite> writes) throws InterruptedException {
+        if (writes.isEmpty()) {
+            return;
+        }
+        log.info("Waiting for Milvus to commit {} accepted writes", writes.size());
+        long deadline = System.currentTimeMillis() + writeTimeout.toMillis();
+        for (VectorWrite accepted : writes) {
+            VectorWrite write = accepted;
+            while (!write.isFinished()) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new RuntimeException("Milvus write " + write.getWriteId() + " still " + write.getStatus()
+                            + " after " + writeTimeout);
+                }
+                Thread.sleep(writePollInterval.toMillis());
+                write = fetchWrite(write.getWriteId());
+            }
+            if (!"COMMITTED".equals(write.getStatus())) {
+                throw new RuntimeException("Milvus write " + write.getWriteId() + " of " + write.getVectors()
+                        + " vectors failed: " + write.getErrorMessage());
+            }
+        }
+        log.info("✓ Milvus committed all {} accepted writes", writes.size());
+    }
+
+    private VectorWrite fetchWrite(long writeId) {
+        VectorWrite write = milvusWebClient.get()
+                .uri("/api/milvus/vectors/writes/{writeId}", writeId)
+                .retrieve()
+                .bodyToMono(VectorWrite.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .block();
+        if (write == null || "UNKNOWN".equals(write.getStatus())) {
+            throw new RuntimeException("Milvus service no longer knows the outcome of write " + writeId);
+        }
+        return write;
+    }
+
+    /**
+     * Has milvus-service delete the rows of each fetched document that this sync did not
+     * produce again, once all its vectors are stored. A document without chunks loses all its
+     * rows. Failures are only logged: stale rows cost space and some search noise, not data.
+     */
+    private void deleteStaleChunks(String milvusCollection, List<DocumentContent> documents, List<TextChunk> chunks) {
+        Map<List<String>, List<String>> chunkIds = new LinkedHashMap<>();
+        for (DocumentContent document : documents) {
+            if (document.getRepositoryName() != null && document.getFilePath() != null) {
+                chunkIds.putIfAbsent(List.of(document.getRepositoryName(), document.getFilePath()), new ArrayList<>());
+            }
+        }
+        for (TextChunk chunk : chunks) {
+            Map<String, String> metadata = chunk.getMetadata();
+            if (metadata == null || metadata.get("repository") == null || metadata.get("file_path") == null) {
+                continue;
+            }
+            chunkIds.computeIfAbsent(List.of(metadata.get("repository"), metadata.get("file_path")),
+                    key -> new ArrayList<>()).add(chunk.getChunkId());
+        }
+        List<DocumentChunkIds> body = chunkIds.entrySet().stream()
+                .map(entry -> DocumentChunkIds.builder()
+                        .repository(entry.getKey().get(0))
+                        .filePath(entry.getKey().get(1))
+                        .chunkIds(entry.getValue())
+                        .build())
+                .toList();
+
+        try {
+            String response = milvusWebClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/milvus/vectors/delete-stale")
+                            .queryParam("collectionName", milvusCollection)
+                            .build())
+                    .contentType(wireMediaType())
+                    .bodyValue(body)
+                    .retrieve()
+                    .onStatus(status -> !status.is2xxSuccessful(),
+                            clientResponse -> clientResponse.bodyToMono(String.class)
+                                    .defaultIfEmpty("")
+                                    .map(error -> new RuntimeException("Milvus service error deleting stale chunks: " +
+                                            clientResponse.statusCode() + " - " + error)))
+                    .bodyToMono(String.class)
+                    .block();
+            log.info("Stale chunks of {} documents in '{}': {}", body.size(), milvusCollection, response);
+        } catch (Exception e) {
+            log.warn("Failed to delete stale chunks from '{}': {}", milvusCollection, e.getMessage());
+        }
+    }
+
+    private void bulkImportVectors(String milvusCollection, List<EmbeddingVector> vectors) {
+        try {
+            String response = milvusWebClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/api/milvus/vectors/bulk-import")
+                            .queryParam("collectionName", milvusCollection)
+                            .build())
+                    .contentType(wireMediaType())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .bodyValue(vectors)
+                    .retrieve()
+                    .onStatus(status -> !status.is2xxSuccessful(),
+                            clientResponse -> clientResponse.bodyToMono(String.class)
+                                    .defaultIfEmpty("")
+                                    .map(body -> new RuntimeException("Milvus service error bulk importing vectors: " +
+                                            clientResponse.statusCode() + " - " + body)))
+                    .bodyToMono(String.class)
+                    .block();
+
+            log.info("Bulk imported {} vectors into '{}': {}", vectors.size(), milvusCollection, response);
+        } catch (Exception e) {
+            log.error("Failed to bulk import vectors to Milvus: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to bulk import vectors to Milvus: " + e.getMessage(), e);
+        }
+    }
+
+    private MediaType wireMediaType() {
+        return "json".equalsIgnoreCase(wireFormat) ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_CBOR;
+    }
+
     private SyncJobResult buildResult(String jobId, LocalDateTime startTime,
                                        int reposProcessed, int docsProcessed,
                                        int chunksCreated, int vectorsStored,
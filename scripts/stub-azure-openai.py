@@ -0,0 +1,100 @@
+#!/usr/bin/env python3
+"""Local stand-in for an Azure OpenAI embeddings deployment.
+
+Serves POST /openai/deployments/<deployment>/embeddings with deterministic vectors so the
+embedding service's multi-endpoint routing, circuit breakers and hedging can be exercised
+without real quota. Run one instance per simulated region, e.g.:
+
+    ./scripts/stub-azure-openai.py --port 9001 --latency-ms 80
+    ./scripts/stub-azure-openai.py --port 9002 --latency-ms 300 --jitter-ms 400
+    ./scripts/stub-azure-openai.py --port 9003 --error-rate 0.5 --error-status 503
+"""
+import argparse
+import hashlib
+import json
+import random
+import re
+import struct
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+PATH = re.compile(r"^/openai/deployments/[^/]+/embeddings")
+
+
+def vector_for(text, dimension):
+    values = []
+    counter = 0
+    while len(values) < dimension:
+        digest = hashlib.sha256(f"{counter}:{text}".encode()).digest()
+        values.extend(v / 2**31 - 1 for v in struct.unpack("<8I", digest))
+        counter += 1
+    values = values[:dimension]
+    norm = sum(v * v for v in values) ** 0.5 or 1.0
+    return [v / norm for v in values]
+
+
+def make_handler(args):
+    class Handler(BaseHTTPRequestHandler):
+        def do_POST(self):
+            if not PATH.match(self.path):
+                self.send_error(404)
+                return
+            body = json.loads(self.rfile.read(int(self.headers.get("Content-Length", 0))) or b"{}")
+            inputs = body.get("input", [])
+            if isinstance(inputs, str):
+                inputs = [inputs]
+
+            time.sleep((args.latency_ms + random.uniform(0, args.jitter_ms)) / 1000)
+
+            if random.random() < args.error_rate:
+                payload = json.dumps({"error": {"code": str(args.error_status), "message": "stub failure"}})
+                self.send_response(args.error_status)
+                if args.error_status == 429:
+                    self.send_header("retry-after-ms", "1000")
+                self.send_header("Content-Type", "application/json")
+                self.end_headers()
+                self.wfile.write(payload.encode())
+                return
+
+            tokens = sum(max(1, len(text) // 4) for text in inputs)
+            payload = json.dumps({
+                "object": "list",
+                "model": "stub-embedding",
+                "data": [{"object": "embedding", "index": i, "embedding": vector_for(text, args.dimension)}
+                         for i, text in enumerate(inputs)],
+                "usage": {"prompt_tokens": tokens, "total_tokens": tokens},
+            })
+            self.send_response(200)
+            self.send_header("Content-Type", "application/json")
+            self.send_header("x-ratelimit-remaining-requests", str(args.remaining_requests))
+            self.send_header("x-ratelimit-remaining-tokens", str(args.remaining_tokens))
+            self.end_headers()
+            self.wfile.write(payload.encode())
+
+        def log_message(self, fmt, *log_args):
+            if args.verbose:
+                super().log_message(fmt, *log_args)
+
+    return Handler
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("--port", type=int, default=9001)
+    parser.add_argument("--dimension", type=int, default=1536)
+    parser.add_argument("--latency-ms", type=float, default=50)
+    parser.add_argument("--jitter-ms", type=float, default=0)
+    parser.add_argument("--error-rate", type=float, default=0)
+    parser.add_argument("--error-status", type=int, default=500)
+    parser.add_argument("--remaining-requests", type=int, default=1000)
+    parser.add_argument("--remaining-tokens", type=int, default=1000000)
+    parser.add_argument("--verbose", action="store_true")
+    args = parser.parse_args()
+
+    server = ThreadingHTTPServer(("127.0.0.1", args.port), make_handler(args))
+    print(f"Stub Azure OpenAI listening on http://127.0.0.1:{args.port}")
+    server.serve_forever()
+
+
+if __name__ == "__main__":
+    main()